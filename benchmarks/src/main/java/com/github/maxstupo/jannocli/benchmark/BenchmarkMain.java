@@ -0,0 +1,32 @@
+package com.github.maxstupo.jannocli.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks with the given JMH arguments, adding the gc profiler unless a profiler is given, so allocation rates are reported
+ * alongside throughput.
+ * 
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar                  # all benchmarks, with -prof gc
+ * java -jar benchmarks/target/benchmarks.jar Lookup -p size=10k
+ * java -jar benchmarks/target/benchmarks.jar -prof stack      # replaces the gc profiler
+ * </pre>
+ * 
+ * @author Maxstupo
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-prof") && !arguments.contains("-h") && !arguments.contains("-l")) {
+            arguments.add("-prof");
+            arguments.add("gc");
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.maxstupo.jannocli.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.maxstupo.jannocli.CommandLine;
+import com.github.maxstupo.jannocli.Completion;
+
+/**
+ * Completing partly typed lines with {@link CommandLine#complete(String, int, int)}, limited to as many completions as a console would display.
+ * The prefixes cycle through the whole registry, and the time should stay the same as the registry grows.
+ * 
+ * @author Maxstupo
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompletionBenchmark {
+
+    private static final int KEYS = 1024;
+    private static final int LIMIT = 32;
+
+    @Param({ Registries.SMALL, Registries.MEDIUM, Registries.LARGE })
+    public String size;
+
+    private CommandLine cli;
+
+    private String[] keywords;
+    private String[] subCommands;
+    private String[] values;
+    private int next;
+
+    @Setup
+    public void setup() {
+        int count = Registries.size(size);
+        cli = Registries.create(count, new Registries.CountingPrint());
+
+        keywords = new String[KEYS];
+        subCommands = new String[KEYS];
+        values = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            int index = (int) ((i * 2654435761L) % count);
+            keywords[i] = "cmd" + index;
+            subCommands[i] = "cmd" + index + " s";
+            values[i] = "cmd" + index + " set abc 1 2.5 t";
+        }
+    }
+
+    private String next(String[] lines) {
+        return lines[next = (next + 1) & (KEYS - 1)];
+    }
+
+    private Completion complete(String line) {
+        return cli.complete(line, line.length(), LIMIT);
+    }
+
+    @Benchmark
+    public Completion keyword() {
+        return complete(next(keywords));
+    }
+
+    @Benchmark
+    public Completion empty() {
+        return complete("");
+    }
+
+    @Benchmark
+    public Completion subCommand() {
+        return complete(next(subCommands));
+    }
+
+    @Benchmark
+    public Completion value() {
+        return complete(next(values));
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.maxstupo.jannocli.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.maxstupo.jannocli.CommandLine;
+import com.github.maxstupo.jannocli.CommandResult;
+
+/**
+ * End-to-end dispatch of a line with {@link CommandLine#parse(com.github.maxstupo.jannocli.cli.IPrint, CharSequence)}: tokenizing, finding the
+ * command, converting its parameters and invoking it. The <code>threads</code> benchmarks dispatch the same lines from 1, 2, 4 and 8 threads at
+ * once into one command-line, so how dispatch scales with cores can be read off their throughput, which JMH reports for all threads together.
+ * 
+ * @author Maxstupo
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Registry {
+
+        @Param({ Registries.SMALL, Registries.MEDIUM, Registries.LARGE })
+        public String size;
+
+        CommandLine cli;
+        int count;
+
+        @Setup
+        public void setup() {
+            count = Registries.size(size);
+            cli = Registries.create(count, new Registries.CountingPrint());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Lines {
+
+        private static final int LINES = 256;
+
+        String[] root;
+        String[] sub;
+        String[] unknown;
+        int next;
+
+        /** Each thread has its own output, so the <code>threads</code> benchmarks don't contend on it. */
+        final Registries.CountingPrint out = new Registries.CountingPrint();
+
+        @Setup
+        public void setup(Registry registry) {
+            root = new String[LINES];
+            sub = new String[LINES];
+            unknown = new String[LINES];
+            for (int i = 0; i < LINES; i++) {
+                int index = (int) ((i * 2654435761L) % registry.count);
+                root[i] = "cmd" + index + " 42 \"a name\"";
+                sub[i] = "c" + index + " set key 7 2.5 true";
+                unknown[i] = "missing" + index + " 42";
+            }
+        }
+
+        int next() {
+            return next = (next + 1) & (LINES - 1);
+        }
+    }
+
+    @Benchmark
+    public CommandResult root(Registry registry, Lines lines) {
+        return registry.cli.parse(lines.out, lines.root[lines.next()]);
+    }
+
+    @Benchmark
+    public CommandResult subCommand(Registry registry, Lines lines) {
+        return registry.cli.parse(lines.out, lines.sub[lines.next()]);
+    }
+
+    @Benchmark
+    public CommandResult unknown(Registry registry, Lines lines) {
+        return registry.cli.parse(lines.out, lines.unknown[lines.next()]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public CommandResult threads1(Registry registry, Lines lines) {
+        return registry.cli.parse(lines.out, lines.sub[lines.next()]);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public CommandResult threads2(Registry registry, Lines lines) {
+        return registry.cli.parse(lines.out, lines.sub[lines.next()]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public CommandResult threads4(Registry registry, Lines lines) {
+        return registry.cli.parse(lines.out, lines.sub[lines.next()]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public CommandResult threads8(Registry registry, Lines lines) {
+        return registry.cli.parse(lines.out, lines.sub[lines.next()]);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.maxstupo.jannocli.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.maxstupo.jannocli.AnnotationCommand;
+import com.github.maxstupo.jannocli.CommandContainer;
+import com.github.maxstupo.jannocli.CommandLine;
+import com.github.maxstupo.jannocli.CommandResult;
+
+/**
+ * Rendering help: for a command, for a container and its sub-commands, and the <code>help</code> listing of every command.
+ * 
+ * @author Maxstupo
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HelpBenchmark {
+
+    @Param({ Registries.SMALL, Registries.MEDIUM, Registries.LARGE })
+    public String size;
+
+    private final Registries.CountingPrint out = new Registries.CountingPrint();
+
+    private CommandLine cli;
+    private CommandContainer container;
+    private AnnotationCommand command;
+
+    @Setup
+    public void setup() {
+        cli = Registries.create(Registries.size(size), out);
+        container = cli.getCommandContainer("cmd0");
+        command = container.getCommand("set");
+    }
+
+    @Benchmark
+    public long command() {
+        command.displayHelp(out);
+        return out.chars;
+    }
+
+    @Benchmark
+    public long container() {
+        container.displayHelp(out);
+        return out.chars;
+    }
+
+    @Benchmark
+    public CommandResult listing() {
+        return cli.parse(out, "help");
+    }
+}
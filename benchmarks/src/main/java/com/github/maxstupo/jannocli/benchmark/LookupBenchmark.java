@@ -0,0 +1,99 @@
+package com.github.maxstupo.jannocli.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.maxstupo.jannocli.AnnotationCommand;
+import com.github.maxstupo.jannocli.CommandContainer;
+import com.github.maxstupo.jannocli.CommandLine;
+
+/**
+ * Looking up commands by keyword and alias with {@link CommandLine#getCommandContainer(String)} and {@link CommandContainer#getCommand(String)}.
+ * The keywords cycle through the whole registry so the lookups aren't always of the same entry.
+ * 
+ * @author Maxstupo
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LookupBenchmark {
+
+    private static final int KEYS = 1024;
+
+    @Param({ Registries.SMALL, Registries.MEDIUM, Registries.LARGE })
+    public String size;
+
+    private CommandLine cli;
+    private CommandContainer container;
+
+    private String[] keywords;
+    private String[] aliases;
+    private String[] misses;
+    private int next;
+
+    @Setup
+    public void setup() {
+        int count = Registries.size(size);
+        cli = Registries.create(count, new Registries.CountingPrint());
+        container = cli.getCommandContainer("cmd0");
+
+        keywords = new String[KEYS];
+        aliases = new String[KEYS];
+        misses = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            int index = (int) ((i * 2654435761L) % count);
+            // New strings, so the lookups hash them like they would a line read from input.
+            keywords[i] = new String("cmd" + index);
+            aliases[i] = new String("c" + index);
+            misses[i] = new String("missing" + index);
+        }
+    }
+
+    private int next() {
+        return next = (next + 1) & (KEYS - 1);
+    }
+
+    @Benchmark
+    public CommandContainer keywordHit() {
+        return cli.getCommandContainer(keywords[next()]);
+    }
+
+    @Benchmark
+    public CommandContainer aliasHit() {
+        return cli.getCommandContainer(aliases[next()]);
+    }
+
+    @Benchmark
+    public CommandContainer miss() {
+        return cli.getCommandContainer(misses[next()]);
+    }
+
+    @Benchmark
+    public AnnotationCommand subCommandHit() {
+        return container.getCommand("set");
+    }
+
+    @Benchmark
+    public AnnotationCommand subCommandAliasHit() {
+        return container.getCommand("s");
+    }
+
+    @Benchmark
+    public AnnotationCommand subCommandMiss() {
+        return container.getCommand("get");
+    }
+}
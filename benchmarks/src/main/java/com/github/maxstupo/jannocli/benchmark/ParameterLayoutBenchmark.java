@@ -0,0 +1,169 @@
+package com.github.maxstupo.jannocli.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.maxstupo.jannocli.Parameters;
+
+/**
+ * The primitive slots of {@link Parameters} compared with the previous layout, which held every converted value boxed in an <code>Object[]</code>.
+ * Each benchmark converts or reads eight integer parameters, like the numeric batch commands that motivated the layout. The values are outside
+ * -128..127, so boxing them can't be served from the {@link Integer} cache and its allocations show up in the gc profiler.
+ * <p>
+ * The <code>baseline</code> benchmarks run {@link BoxedParameters}, a copy of the conversion and reads of the previous layout. The
+ * {@link Parameters#parse(String[], Class[], String[])} benchmarks also build the schema of the types and aliases on each call, which commands
+ * registered with a {@link com.github.maxstupo.jannocli.CommandLine} build once.
+ *
+ * @author Maxstupo
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParameterLayoutBenchmark {
+
+    private static final int COUNT = 8;
+
+    private String[] values;
+    private Class<?>[] types;
+    private String[] aliases;
+
+    private Parameters parameters;
+    private BoxedParameters boxed;
+
+    @Setup
+    public void setup() {
+        values = new String[COUNT];
+        types = new Class<?>[COUNT];
+        aliases = new String[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            values[i] = Integer.toString(1000 + i * 12345);
+            types[i] = Integer.class;
+            aliases[i] = "p" + i;
+        }
+
+        parameters = Parameters.parse(values, types, aliases);
+        boxed = BoxedParameters.parse(values, types, aliases);
+    }
+
+    @Benchmark
+    public Parameters parse() {
+        return Parameters.parse(values, types, aliases);
+    }
+
+    @Benchmark
+    public BoxedParameters parseBaseline() {
+        return BoxedParameters.parse(values, types, aliases);
+    }
+
+    @Benchmark
+    public long parseAndRead() {
+        Parameters p = Parameters.parse(values, types, aliases);
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++)
+            sum += p.getInt(i);
+        return sum;
+    }
+
+    @Benchmark
+    public long parseAndReadBaseline() {
+        BoxedParameters p = BoxedParameters.parse(values, types, aliases);
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++)
+            sum += p.getInt(i);
+        return sum;
+    }
+
+    @Benchmark
+    public long readUnboxed() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++)
+            sum += parameters.getInt(i);
+        return sum;
+    }
+
+    /** Reads through the generic accessor, which boxes values held in a primitive slot. */
+    @Benchmark
+    public long readBoxed() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++)
+            sum += parameters.get(i, Integer.class);
+        return sum;
+    }
+
+    @Benchmark
+    public long readBaseline() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++)
+            sum += boxed.getInt(i);
+        return sum;
+    }
+
+    @Benchmark
+    public long readByAlias() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++)
+            sum += parameters.getInt(aliases[i]);
+        return sum;
+    }
+
+    @Benchmark
+    public long readByAliasBaseline() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++)
+            sum += boxed.getInt(aliases[i]);
+        return sum;
+    }
+
+    /** The integer conversion and reads of the previous layout of {@link Parameters}, every value boxed in an <code>Object[]</code>. */
+    public static final class BoxedParameters {
+
+        private final Object[] objects;
+        private final Map<String, Integer> aliasLookup = new HashMap<>();
+
+        private BoxedParameters(Object[] objects, String[] aliases) {
+            this.objects = objects;
+            for (int i = 0; i < aliases.length; i++)
+                aliasLookup.put(aliases[i], i);
+        }
+
+        static BoxedParameters parse(String[] parameters, Class<?>[] types, String[] aliases) {
+            Object[] arr = new Object[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                Class<?> type = i < types.length ? types[i] : null;
+                arr[i] = (type == Integer.class) ? (Object) Integer.parseInt(parameters[i]) : parameters[i];
+            }
+            return new BoxedParameters(arr, aliases);
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T get(int index, Class<T> type, T defaultValue) {
+            if (index < 0 || index >= objects.length)
+                return defaultValue;
+            return (T) objects[index];
+        }
+
+        int getInt(int index) {
+            return get(index, Integer.class, 0);
+        }
+
+        int getInt(String alias) {
+            Integer index = aliasLookup.get(alias);
+            return getInt((index != null) ? index : -1);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.maxstupo.jannocli.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.maxstupo.jannocli.Parameters;
+
+/**
+ * Checking and converting parameters of each supported type with {@link Parameters#check(String[], Class[])} and
+ * {@link Parameters#parse(String[], Class[], String[])}. Reading converted values is compared with the previous layout in
+ * {@link ParameterLayoutBenchmark}.
+ * 
+ * @author Maxstupo
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParametersBenchmark {
+
+    /** An enum parameter type. */
+    public enum Access {
+        READ, WRITE, APPEND, TRUNCATE
+    }
+
+    @Param({ "String", "Integer", "Long", "Short", "Byte", "Float", "Double", "Character", "Boolean", "Enum", "UUID" })
+    public String type;
+
+    private String[] values;
+    private Class<?>[] types;
+    private String[] aliases;
+
+    @Setup
+    public void setup() {
+        String value;
+        Class<?> cls;
+        switch (type) {
+            case "String":
+                cls = String.class;
+                value = "value";
+                break;
+            case "Integer":
+                cls = Integer.class;
+                value = "123456";
+                break;
+            case "Long":
+                cls = Long.class;
+                value = "1234567890123";
+                break;
+            case "Short":
+                cls = Short.class;
+                value = "1234";
+                break;
+            case "Byte":
+                cls = Byte.class;
+                value = "123";
+                break;
+            case "Float":
+                cls = Float.class;
+                value = "3.14159";
+                break;
+            case "Double":
+                cls = Double.class;
+                value = "2.718281828";
+                break;
+            case "Character":
+                cls = Character.class;
+                value = "c";
+                break;
+            case "Boolean":
+                cls = Boolean.class;
+                value = "true";
+                break;
+            case "Enum":
+                cls = Access.class;
+                value = "append";
+                break;
+            case "UUID":
+                cls = UUID.class;
+                value = "123e4567-e89b-12d3-a456-426614174000";
+                break;
+            default:
+                throw new IllegalArgumentException(type);
+        }
+
+        // Four parameters of the type, so the per-parameter cost outweighs the per-call cost.
+        values = new String[] { value, value, value, value };
+        types = new Class<?>[] { cls, cls, cls, cls };
+        aliases = new String[] { "a", "b", "c", "d" };
+    }
+
+    @Benchmark
+    public boolean check() {
+        return Parameters.check(values, types);
+    }
+
+    @Benchmark
+    public Parameters parse() {
+        return Parameters.parse(values, types, aliases);
+    }
+}
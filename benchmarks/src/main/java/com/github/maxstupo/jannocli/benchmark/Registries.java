@@ -0,0 +1,117 @@
+package com.github.maxstupo.jannocli.benchmark;
+
+import java.io.ByteArrayInputStream;
+
+import com.github.maxstupo.jannocli.AnnotationCommand;
+import com.github.maxstupo.jannocli.CommandContainer;
+import com.github.maxstupo.jannocli.CommandLine;
+import com.github.maxstupo.jannocli.ICommandRegistry;
+import com.github.maxstupo.jannocli.cli.IPrint;
+import com.github.maxstupo.jannocli.invoke.ICommandInvoker;
+
+/**
+ * Builds command-lines with a given number of commands for the benchmarks. The commands are created through {@link ICommandRegistry}, like the
+ * classes generated by the annotation processor, so large registries don't need thousands of annotated classes.
+ * <p>
+ * Command <code>i</code> has the keyword <code>cmd{i}</code> and the alias <code>c{i}</code>. Its root command takes an int and a string, and it
+ * has a sub-command <code>set</code> taking a string, an int, a double and a boolean.
+ * 
+ * @author Maxstupo
+ */
+final class Registries {
+
+    /** The registry sizes used by the benchmarks, given as JMH parameters. */
+    static final String SMALL = "10";
+    static final String MEDIUM = "1k";
+    static final String LARGE = "10k";
+
+    /** Command invocations are counted so the work of a command can't be removed. */
+    static final class Owner {
+        long invocations;
+    }
+
+    private static final ICommandInvoker ROOT = (owner, cmd) -> ((Owner) owner).invocations += cmd.parameters.getInt(0);
+    private static final ICommandInvoker SET = (owner, cmd) -> ((Owner) owner).invocations += cmd.parameters.getInt(1);
+
+    private Registries() {
+    }
+
+    /**
+     * Parses a registry size parameter such as <code>10</code>, <code>1k</code> or <code>10k</code>.
+     */
+    static int size(String size) {
+        if (size.endsWith("k"))
+            return Integer.parseInt(size.substring(0, size.length() - 1)) * 1000;
+        return Integer.parseInt(size);
+    }
+
+    /**
+     * Creates a command-line with the given number of commands, writing to the given output.
+     */
+    static CommandLine create(int count, IPrint out) {
+        CommandLine cli = new CommandLine(new ByteArrayInputStream(new byte[0]), out);
+        for (int i = 0; i < count; i++)
+            cli.register(new Registry(i), new Owner());
+        return cli;
+    }
+
+    private static final class Registry implements ICommandRegistry {
+
+        private final int index;
+
+        Registry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Class<?> getOwnerType() {
+            return Owner.class;
+        }
+
+        @Override
+        public String getKeyword() {
+            return "cmd" + index;
+        }
+
+        @Override
+        public String[] getAliases() {
+            return new String[] { "c" + index };
+        }
+
+        @Override
+        public CommandContainer createContainer(Object owner) {
+            CommandContainer container = new CommandContainer(owner, getKeyword(), getAliases());
+            container.setRootCommand(new AnnotationCommand(container, ROOT, "", new String[] { "" }, "Command " + index, "Runs command " + index + ".", false, //
+                    new Class<?>[] { Integer.class, String.class }, new String[] { "count", "name" }, new String[] { "the number of runs", "the name of the run" }));
+            container.addCommand(new AnnotationCommand(container, SET, "set", new String[] { "s" }, "Set " + index, "Sets a value of command " + index + ".", false, //
+                    new Class<?>[] { String.class, Integer.class, Double.class, Boolean.class }, new String[] { "key", "int", "double", "flag" }, new String[] { "the key", "an int value", "a double value", "a flag" }));
+            return container;
+        }
+    }
+
+    /** Discards all output, counting the characters written so rendering can't be removed. */
+    static final class CountingPrint implements IPrint {
+
+        long chars;
+
+        @Override
+        public void println(String line) {
+            chars += line.length() + 1;
+        }
+
+        @Override
+        public void print(String line) {
+            chars += line.length();
+        }
+
+        @Override
+        public void println(CharSequence text) {
+            chars += text.length() + 1;
+        }
+
+        @Override
+        public void print(CharSequence text) {
+            chars += text.length();
+        }
+    }
+}
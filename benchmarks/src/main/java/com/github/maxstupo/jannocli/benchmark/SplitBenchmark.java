@@ -0,0 +1,81 @@
+package com.github.maxstupo.jannocli.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.maxstupo.jannocli.Tokenizer;
+import com.github.maxstupo.jannocli.Util;
+
+/**
+ * Splitting lines into tokens, through {@link Util#split(String)} (which creates a string per token) and a reused {@link Tokenizer} (which doesn't).
+ * 
+ * @author Maxstupo
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SplitBenchmark {
+
+    @Param({ "short", "shortQuoted", "long", "longQuoted" })
+    public String line;
+
+    private String text;
+    private final Tokenizer tokenizer = new Tokenizer();
+
+    @Setup
+    public void setup() {
+        switch (line) {
+            case "short":
+                text = "user add bob 42";
+                break;
+            case "shortQuoted":
+                text = "user add \"bob smith\" 42";
+                break;
+            case "long":
+                text = repeat("token value\\ with\\ spaces 12345 ", 20);
+                break;
+            case "longQuoted":
+                text = repeat("\"quoted \\\"value\\\"\" 'single quoted' plain ", 20);
+                break;
+            default:
+                throw new IllegalArgumentException(line);
+        }
+    }
+
+    private static String repeat(String str, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++)
+            sb.append(str);
+        return sb.toString().trim();
+    }
+
+    @Benchmark
+    public String[] split() {
+        return Util.split(text);
+    }
+
+    @Benchmark
+    public int tokenize() {
+        return tokenizer.tokenize(text).count();
+    }
+
+    @Benchmark
+    public String[] tokenizeToArray() {
+        Tokenizer tokens = tokenizer.tokenize(text);
+        return tokens.toArray(0, tokens.count());
+    }
+}
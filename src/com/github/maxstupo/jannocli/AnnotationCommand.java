@@ -1,226 +1,399 @@
-package com.github.maxstupo.jannocli;
-
-import java.lang.reflect.Method;
-import java.util.Arrays;
-
-import com.github.maxstupo.jannocli.annotation.Command;
-import com.github.maxstupo.jannocli.annotation.ParamAliases;
-import com.github.maxstupo.jannocli.annotation.ParamDescription;
-import com.github.maxstupo.jannocli.annotation.ParamTypes;
-import com.github.maxstupo.jannocli.cli.IPrint;
-
-/**
- * @author Maxstupo
- *
- */
-public class AnnotationCommand {
-
-    private final CommandContainer container;
-    private final Method method;
-
-    private final Class<?>[] paramTypes;
-    private final String[] paramAliases;
-    private final String[] paramDescriptions;
-
-    private final boolean hidden;
-    private final String keyword;
-    private final String[] aliases;
-    private final String name;
-    private final String description;
-
-    public AnnotationCommand(CommandContainer container, Method method, Command info, ParamTypes filter, ParamAliases paramAliases, ParamDescription paramDescriptions) {
-        this.container = container;
-        this.method = method;
-        this.name = info.name();
-        this.keyword = info.value();
-        this.description = info.description();
-        this.aliases = info.aliases();
-        this.hidden = info.hidden();
-        this.paramDescriptions = (paramDescriptions != null) ? paramDescriptions.value() : new String[0];
-        this.paramTypes = (filter != null) ? filter.value() : new Class[0];
-        this.paramAliases = (paramAliases != null) ? paramAliases.value() : new String[0];
-    }
-
-    public boolean isHidden() {
-        return hidden;
-    }
-
-    public boolean invoke(IPrint ps, String[] parameters) {
-        if (!Parameters.check(parameters, paramTypes)) // TODO: Add optional flag for parameters
-            return false;
-
-        Parameters params = Parameters.parse(parameters, paramTypes, paramAliases);
-        ExecutedCommand command = new ExecutedCommand(ps, params);
-
-        try {
-            method.invoke(container.getOwner(), command);
-            if (command.displayHelp)
-                return false;
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return true;
-    }
-
-    public static boolean hasCorrectParams(Method m) {
-        Class<?>[] types = m.getParameterTypes();
-
-        if (types.length == 1)
-            return types[0].isAssignableFrom(ExecutedCommand.class);
-        return false;
-    }
-
-    public String getKeyword() {
-        return keyword;
-    }
-
-    public CommandContainer getContainer() {
-        return container;
-    }
-
-    public Method getMethod() {
-        return method;
-    }
-
-    public Class<?>[] getParamTypes() {
-        return paramTypes;
-    }
-
-    public String[] getAliases() {
-        return aliases;
-    }
-
-    public String[] getParamDescriptions() {
-        return paramDescriptions;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public String getDescription() {
-        return description;
-    }
-
-    public void displayHelp(IPrint ps) {
-        String title = " [ Command Help] ";
-
-        int maxWidth = 0;
-        maxWidth = Math.max(maxWidth, getName().length());
-        maxWidth = Math.max(maxWidth, ("Description: " + getDescription()).length());
-        maxWidth = Math.max(maxWidth, getKeyword().length());
-        maxWidth = Math.max(maxWidth, String.join(",", getAliases()).length());
-        maxWidth = Math.max(maxWidth, getUsage().length());
-
-        if (paramDescriptions != null) {
-            for (int i = 0; i < paramDescriptions.length; i++) {
-                String value;
-                if (paramAliases != null && i < paramAliases.length) {
-                    value = paramAliases[i];
-                } else {
-                    value = i + "";
-                }
-                maxWidth = Math.max(maxWidth, ("  <" + value + ">" + " - " + paramDescriptions[i]).length());
-            }
-        }
-
-        maxWidth += 2;
-
-        ps.println(Util.strRepeat("-", maxWidth / 2 - title.length() / 2) + title + Util.strRepeat("-", maxWidth / 2 - title.length() / 2));
-        ps.println("Name: " + getName());
-        ps.println("Description: " + getDescription());
-        ps.println("Keyword: " + getKeyword());
-        ps.println("Aliases: " + String.join(",", getAliases()));
-        ps.println("Usage: " + getUsage());
-
-        if (paramDescriptions != null) {
-            ps.println("Parameters:");
-            for (int i = 0; i < paramDescriptions.length; i++) {
-                ps.println("  <" + getParam(i) + ">" + " - " + paramDescriptions[i]);
-            }
-        }
-    }
-
-    public String getUsage() {
-        String params = "";
-        for (int i = 0; i < Math.max(paramTypes != null ? paramTypes.length : 0, paramAliases != null ? paramAliases.length : 0); i++) {
-            params += " <" + getParam(i) + ">";
-        }
-        return container.getKeyword() + " " + getKeyword() + "" + params;
-    }
-
-    private String getParam(int i) {
-        String value = "";
-        // If parameter type is enum, print each possible value.
-        if (i < paramTypes.length && paramTypes[i].isEnum()) {
-
-            for (Object obj : paramTypes[i].getEnumConstants())
-                value += obj.toString().toLowerCase() + "|";
-
-            value = value.substring(0, value.length() - 1);
-
-        } else if (paramAliases != null && i < paramAliases.length) {
-            value = paramAliases[i];
-
-        } else {
-            value = i + "";
-        }
-        return value;
-    }
-
-    @Override
-    public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + Arrays.hashCode(aliases);
-        result = prime * result + ((container == null) ? 0 : container.hashCode());
-        result = prime * result + ((description == null) ? 0 : description.hashCode());
-        result = prime * result + ((keyword == null) ? 0 : keyword.hashCode());
-        result = prime * result + ((method == null) ? 0 : method.hashCode());
-        result = prime * result + ((name == null) ? 0 : name.hashCode());
-        result = prime * result + Arrays.hashCode(paramAliases);
-        return result;
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj)
-            return true;
-        if (obj == null)
-            return false;
-        if (getClass() != obj.getClass())
-            return false;
-        AnnotationCommand other = (AnnotationCommand) obj;
-        if (!Arrays.equals(aliases, other.aliases))
-            return false;
-        if (container == null) {
-            if (other.container != null)
-                return false;
-        } else if (!container.equals(other.container))
-            return false;
-        if (description == null) {
-            if (other.description != null)
-                return false;
-        } else if (!description.equals(other.description))
-            return false;
-        if (keyword == null) {
-            if (other.keyword != null)
-                return false;
-        } else if (!keyword.equals(other.keyword))
-            return false;
-        if (method == null) {
-            if (other.method != null)
-                return false;
-        } else if (!method.equals(other.method))
-            return false;
-        if (name == null) {
-            if (other.name != null)
-                return false;
-        } else if (!name.equals(other.name))
-            return false;
-        if (!Arrays.equals(paramAliases, other.paramAliases))
-            return false;
-        return true;
-    }
-
-}
+package com.github.maxstupo.jannocli;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.maxstupo.jannocli.annotation.Command;
+import com.github.maxstupo.jannocli.annotation.ParamAliases;
+import com.github.maxstupo.jannocli.annotation.ParamDescription;
+import com.github.maxstupo.jannocli.annotation.ParamTypes;
+import com.github.maxstupo.jannocli.annotation.Serial;
+import com.github.maxstupo.jannocli.cli.IInput;
+import com.github.maxstupo.jannocli.cli.IPrint;
+import com.github.maxstupo.jannocli.convert.ConverterRegistry;
+import com.github.maxstupo.jannocli.invoke.ICommandInvoker;
+import com.github.maxstupo.jannocli.invoke.Invokers;
+import com.github.maxstupo.jannocli.metrics.CommandMetrics;
+
+/**
+ * @author Maxstupo
+ *
+ */
+public class AnnotationCommand {
+
+    private final CommandContainer container;
+    private final Method method;
+    private final ICommandInvoker invoker;
+
+    private final Class<?>[] paramTypes;
+    private final String[] paramAliases;
+    private final String[] paramDescriptions;
+    private ParameterSchema schema;
+    private volatile CommandMetrics metrics;
+
+    private final boolean hidden;
+    private final boolean serial;
+    private final String keyword;
+    private final String[] aliases;
+    private final String name;
+    private final String description;
+
+    private final String usage;
+    /** The values that complete each parameter, in order, or null for parameters that take any value. */
+    private final String[][] paramValues;
+    /** The rendered help, created when first displayed. A command doesn't change once created, so it is never invalidated. */
+    private volatile String[] help;
+
+    public AnnotationCommand(CommandContainer container, Method method, Command info, ParamTypes filter, ParamAliases paramAliases, ParamDescription paramDescriptions) {
+        this(container, method, Invokers.create(method), info.value(), info.aliases(), info.name(), info.description(), info.hidden(), method.isAnnotationPresent(Serial.class), //
+                (filter != null) ? filter.value() : new Class[0], //
+                (paramAliases != null) ? paramAliases.value() : new String[0], //
+                (paramDescriptions != null) ? paramDescriptions.value() : new String[0]);
+    }
+
+    /**
+     * Create a new {@link AnnotationCommand} without reading any annotations. Used by the classes generated by the command annotation processor.
+     */
+    public AnnotationCommand(CommandContainer container, ICommandInvoker invoker, String keyword, String[] aliases, String name, String description, boolean hidden, Class<?>[] paramTypes, String[] paramAliases, String[] paramDescriptions) {
+        this(container, invoker, keyword, aliases, name, description, hidden, false, paramTypes, paramAliases, paramDescriptions);
+    }
+
+    /**
+     * Create a new {@link AnnotationCommand} without reading any annotations. Used by the classes generated by the command annotation processor.
+     */
+    public AnnotationCommand(CommandContainer container, ICommandInvoker invoker, String keyword, String[] aliases, String name, String description, boolean hidden, boolean serial, Class<?>[] paramTypes, String[] paramAliases, String[] paramDescriptions) {
+        this(container, null, invoker, keyword, aliases, name, description, hidden, serial, paramTypes, paramAliases, paramDescriptions);
+    }
+
+    private AnnotationCommand(CommandContainer container, Method method, ICommandInvoker invoker, String keyword, String[] aliases, String name, String description, boolean hidden, boolean serial, Class<?>[] paramTypes, String[] paramAliases, String[] paramDescriptions) {
+        this.container = container;
+        this.method = method;
+        this.invoker = invoker;
+        this.name = name;
+        this.keyword = keyword;
+        this.description = description;
+        this.aliases = aliases;
+        this.hidden = hidden;
+        this.serial = serial;
+        this.paramDescriptions = paramDescriptions;
+        this.paramTypes = paramTypes;
+        this.paramAliases = paramAliases;
+        this.schema = new ParameterSchema(paramTypes, paramAliases, null);
+        this.usage = createUsage();
+        this.paramValues = createParamValues();
+    }
+
+    /**
+     * Rebuilds the parameter converters of this command using the converters registered with a command-line. Called when the command is
+     * registered, before it can be invoked.
+     */
+    void bindConverters(ConverterRegistry registry) {
+        this.schema = new ParameterSchema(paramTypes, paramAliases, registry);
+    }
+
+    public boolean isHidden() {
+        return hidden;
+    }
+
+    /**
+     * Returns true if this command must not run alongside other commands of a parallel script.
+     * 
+     * @return true if this command has the {@link Serial} annotation.
+     */
+    public boolean isSerial() {
+        return serial;
+    }
+
+    /**
+     * Returns the metrics of this command.
+     * 
+     * @return the metrics of this command, or null if none have been recorded.
+     * @see CommandLine#getMetrics()
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the metrics of this command, creating them when first recorded.
+     */
+    CommandMetrics metrics() {
+        CommandMetrics m = metrics;
+        if (m != null)
+            return m;
+
+        synchronized (this) {
+            if (metrics == null)
+                metrics = new CommandMetrics();
+            return metrics;
+        }
+    }
+
+    public boolean invoke(IPrint ps, String[] parameters) {
+        Parameters params = schema.parse(parameters);
+        if (params == null) // TODO: Add optional flag for parameters
+            return false;
+        return execute(ps, params) != CommandResult.HELP;
+    }
+
+    /**
+     * Returns the parameters of this command for the tokens between <code>from</code> (inclusive) and <code>to</code> (exclusive), or null if they
+     * are invalid. The returned parameters don't depend on the tokenizer, so they can be used after it is reused.
+     */
+    Parameters parse(Tokenizer tokens, int from, int to, boolean lazy) {
+        return schema.parse(tokens, from, to, lazy);
+    }
+
+    /**
+     * Executes this command with the given parameters. Exceptions thrown by the command are printed and reported as {@link CommandResult#FAILED},
+     * as is a command that sets {@link ExecutedCommand#failed}.
+     */
+    CommandResult execute(IPrint ps, Parameters params) {
+        return execute(ps, params, IInput.EMPTY);
+    }
+
+    /**
+     * Executes this command with the given parameters and input. Exceptions thrown by the command are printed and reported as
+     * {@link CommandResult#FAILED}, as is a command that sets {@link ExecutedCommand#failed}.
+     */
+    CommandResult execute(IPrint ps, Parameters params, IInput input) {
+        ExecutedCommand command = new ExecutedCommand(ps, params, input);
+
+        try {
+            invoker.invoke(container.getOwner(), command);
+        } catch (Pipe.ClosedException e) {
+            return CommandResult.EXECUTED; // The rest of the output isn't wanted.
+        } catch (Exception e) {
+            e.printStackTrace();
+            return CommandResult.FAILED;
+        }
+        if (command.failed)
+            return CommandResult.FAILED;
+        return command.displayHelp ? CommandResult.HELP : CommandResult.EXECUTED;
+    }
+
+    public static boolean hasCorrectParams(Method m) {
+        Class<?>[] types = m.getParameterTypes();
+
+        if (types.length == 1)
+            return types[0].isAssignableFrom(ExecutedCommand.class);
+        return false;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public CommandContainer getContainer() {
+        return container;
+    }
+
+    /**
+     * Returns the method of this command, or null if this command was created by a generated class.
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    public ICommandInvoker getInvoker() {
+        return invoker;
+    }
+
+    public Class<?>[] getParamTypes() {
+        return paramTypes;
+    }
+
+    public String[] getAliases() {
+        return aliases;
+    }
+
+    public String[] getParamDescriptions() {
+        return paramDescriptions;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void displayHelp(IPrint ps) {
+        String[] lines = help;
+        if (lines == null)
+            help = lines = renderHelp();
+        for (String line : lines)
+            ps.println(line);
+    }
+
+    private String[] renderHelp() {
+        String title = " [ Command Help] ";
+
+        int maxWidth = 0;
+        maxWidth = Math.max(maxWidth, getName().length());
+        maxWidth = Math.max(maxWidth, ("Description: " + getDescription()).length());
+        maxWidth = Math.max(maxWidth, getKeyword().length());
+        maxWidth = Math.max(maxWidth, String.join(",", getAliases()).length());
+        maxWidth = Math.max(maxWidth, getUsage().length());
+
+        if (paramDescriptions != null) {
+            for (int i = 0; i < paramDescriptions.length; i++) {
+                String value;
+                if (paramAliases != null && i < paramAliases.length) {
+                    value = paramAliases[i];
+                } else {
+                    value = i + "";
+                }
+                maxWidth = Math.max(maxWidth, ("  <" + value + ">" + " - " + paramDescriptions[i]).length());
+            }
+        }
+
+        maxWidth += 2;
+
+        List<String> lines = new ArrayList<>();
+        lines.add(Util.strRepeat("-", maxWidth / 2 - title.length() / 2) + title + Util.strRepeat("-", maxWidth / 2 - title.length() / 2));
+        lines.add("Name: " + getName());
+        lines.add("Description: " + getDescription());
+        lines.add("Keyword: " + getKeyword());
+        lines.add("Aliases: " + String.join(",", getAliases()));
+        lines.add("Usage: " + getUsage());
+
+        if (paramDescriptions != null) {
+            lines.add("Parameters:");
+            for (int i = 0; i < paramDescriptions.length; i++) {
+                lines.add("  <" + getParam(i) + ">" + " - " + paramDescriptions[i]);
+            }
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the usage of this command, such as <code>user add &lt;name&gt; &lt;age&gt;</code>. The usage is created with the command.
+     * 
+     * @return the usage of this command.
+     */
+    public String getUsage() {
+        return usage;
+    }
+
+    private String createUsage() {
+        StringBuilder sb = new StringBuilder();
+        sb.append((container != null) ? container.getKeyword() : "").append(' ').append(getKeyword());
+        for (int i = 0; i < Math.max(paramTypes != null ? paramTypes.length : 0, paramAliases != null ? paramAliases.length : 0); i++) {
+            sb.append(" <").append(getParam(i)).append('>');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Adds the values of the given parameter starting with the given prefix, ignoring case, to the given list until the list holds the given number
+     * of elements. An enum parameter completes to its constants in lower case, as shown in the usage, and a boolean parameter to <code>true</code>
+     * and <code>false</code>. Other parameters have no completions.
+     */
+    void completeParam(int index, CharSequence prefix, int limit, List<String> values) {
+        if (index >= paramValues.length || paramValues[index] == null)
+            return;
+        String start = prefix.toString();
+        for (String value : paramValues[index]) {
+            if (values.size() >= limit)
+                return;
+            if (value.regionMatches(true, 0, start, 0, start.length()))
+                values.add(value);
+        }
+    }
+
+    private String[][] createParamValues() {
+        String[][] values = new String[(paramTypes != null) ? paramTypes.length : 0][];
+        for (int i = 0; i < values.length; i++) {
+            if (paramTypes[i].isEnum()) {
+                Object[] constants = paramTypes[i].getEnumConstants();
+                values[i] = new String[constants.length];
+                for (int j = 0; j < constants.length; j++)
+                    values[i][j] = constants[j].toString().toLowerCase();
+                Arrays.sort(values[i]);
+
+            } else if (Util.isAssignable(paramTypes[i], boolean.class)) {
+                values[i] = new String[] { "false", "true" };
+            }
+        }
+        return values;
+    }
+
+    private String getParam(int i) {
+        // If parameter type is enum, print each possible value.
+        if (i < paramTypes.length && paramTypes[i].isEnum()) {
+            StringBuilder sb = new StringBuilder();
+            for (Object obj : paramTypes[i].getEnumConstants()) {
+                if (sb.length() > 0)
+                    sb.append('|');
+                sb.append(obj.toString().toLowerCase());
+            }
+            return sb.toString();
+
+        } else if (paramAliases != null && i < paramAliases.length) {
+            return paramAliases[i];
+
+        } else {
+            return i + "";
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + Arrays.hashCode(aliases);
+        result = prime * result + ((container == null) ? 0 : container.hashCode());
+        result = prime * result + ((description == null) ? 0 : description.hashCode());
+        result = prime * result + ((keyword == null) ? 0 : keyword.hashCode());
+        result = prime * result + ((method == null) ? 0 : method.hashCode());
+        result = prime * result + ((name == null) ? 0 : name.hashCode());
+        result = prime * result + Arrays.hashCode(paramAliases);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        AnnotationCommand other = (AnnotationCommand) obj;
+        if (!Arrays.equals(aliases, other.aliases))
+            return false;
+        if (container == null) {
+            if (other.container != null)
+                return false;
+        } else if (!container.equals(other.container))
+            return false;
+        if (description == null) {
+            if (other.description != null)
+                return false;
+        } else if (!description.equals(other.description))
+            return false;
+        if (keyword == null) {
+            if (other.keyword != null)
+                return false;
+        } else if (!keyword.equals(other.keyword))
+            return false;
+        if (method == null) {
+            if (other.method != null)
+                return false;
+        } else if (!method.equals(other.method))
+            return false;
+        if (name == null) {
+            if (other.name != null)
+                return false;
+        } else if (!name.equals(other.name))
+            return false;
+        if (!Arrays.equals(paramAliases, other.paramAliases))
+            return false;
+        return true;
+    }
+
+}
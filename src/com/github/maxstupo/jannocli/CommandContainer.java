@@ -1,149 +1,298 @@
-package com.github.maxstupo.jannocli;
-
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-
-import com.github.maxstupo.jannocli.annotation.Command;
-import com.github.maxstupo.jannocli.cli.IPrint;
-
-/**
- * @author Maxstupo
- *
- */
-public class CommandContainer {
-
-    private final Object owner;
-
-    private final String keyword;
-    private final String[] aliases;
-
-    private final Map<String, AnnotationCommand> commands = new HashMap<>();
-
-    public CommandContainer(Object owner, Command info) {
-        this.owner = owner;
-        this.keyword = info.value();
-        this.aliases = info.aliases();
-    }
-
-    public void displayHelp(IPrint ps) {
-
-        String title = " [ Command Help] ";
-
-        int maxWidth = 0;
-        maxWidth = Math.max(maxWidth, getRootCommand().getName().length());
-        maxWidth = Math.max(maxWidth, ("Description: " + getRootCommand().getDescription()).length());
-        maxWidth = Math.max(maxWidth, getKeyword().length());
-        maxWidth = Math.max(maxWidth, String.join(",", getAliases()).length());
-
-        maxWidth += 2;
-        // System.out.println("CommandContainer.displayHelp()");
-        ps.println(Util.strRepeat("-", maxWidth / 2 - title.length() / 2) + title + Util.strRepeat("-", maxWidth / 2 - title.length() / 2));
-        ps.println("Name: " + getRootCommand().getName());
-        ps.println("Description: " + getRootCommand().getDescription());
-        ps.println("Keyword: " + getKeyword());
-        ps.println("Aliases: " + String.join(",", getAliases()));
-        ps.println("");
-        ps.println("Sub-commands:");
-        for (Entry<String, AnnotationCommand> entry : commands.entrySet()) {
-            if (entry.getKey() != null)
-                ps.println("  - " + entry.getValue().getUsage());
-        }
-
-    }
-
-    public boolean invoke(IPrint ps, String[] parameters) {
-        return getRootCommand().invoke(ps, parameters);
-    }
-
-    public AnnotationCommand getCommand(String keyword) {
-        AnnotationCommand command = commands.get(keyword);
-        if (command != null)
-            return command;
-
-        for (Entry<String, AnnotationCommand> entry : commands.entrySet()) {
-            String[] aliases = entry.getValue().getAliases();
-
-            for (String alias : aliases) {
-                if (keyword.equals(alias))
-                    return entry.getValue();
-            }
-        }
-        return null;
-    }
-
-    public void setRootCommand(AnnotationCommand command) {
-        commands.put(null, command);
-    }
-
-    public boolean addCommand(AnnotationCommand command) {
-        if (commands.containsKey(command.getKeyword()))
-            return false;
-
-        commands.put(command.getKeyword(), command);
-        return true;
-    }
-
-    public AnnotationCommand getRootCommand() {
-        return commands.get(null);
-    }
-
-    public boolean hasRootCommand() {
-        return commands.containsKey(null);
-    }
-
-    public Map<String, AnnotationCommand> getCommands() {
-        return Collections.unmodifiableMap(commands);
-    }
-
-    public Object getOwner() {
-        return owner;
-    }
-
-    public String getKeyword() {
-        return keyword;
-    }
-
-    public String[] getAliases() {
-        return aliases;
-    }
-
-    @Override
-    public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + Arrays.hashCode(aliases);
-        result = prime * result + ((commands == null) ? 0 : commands.hashCode());
-        result = prime * result + ((keyword == null) ? 0 : keyword.hashCode());
-        return result;
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj)
-            return true;
-        if (obj == null)
-            return false;
-        if (getClass() != obj.getClass())
-            return false;
-        CommandContainer other = (CommandContainer) obj;
-        if (!Arrays.equals(aliases, other.aliases))
-            return false;
-        if (commands == null) {
-            if (other.commands != null)
-                return false;
-        } else if (!commands.equals(other.commands))
-            return false;
-
-        if (keyword == null) {
-            if (other.keyword != null)
-                return false;
-        } else if (!keyword.equals(other.keyword))
-            return false;
-
-        return true;
-    }
-
-}
+package com.github.maxstupo.jannocli;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.github.maxstupo.jannocli.annotation.Command;
+import com.github.maxstupo.jannocli.cli.IPrint;
+
+/**
+ * This class holds the root command and the sub-commands of a registered object.
+ * <p>
+ * The commands are held within an immutable snapshot that is replaced whenever a command is added, so commands can be looked up and invoked from
+ * any thread while commands are being added.
+ * 
+ * @author Maxstupo
+ */
+public class CommandContainer {
+
+    private final Object owner;
+
+    private final String keyword;
+    private final String[] aliases;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.<String, AnnotationCommand> emptyMap(), new KeywordIndex<AnnotationCommand>(), KeywordTrie.<AnnotationCommand> empty(), 0);
+
+    public CommandContainer(Object owner, Command info) {
+        this(owner, info.value(), info.aliases());
+    }
+
+    public CommandContainer(Object owner, String keyword, String[] aliases) {
+        this.owner = owner;
+        this.keyword = keyword;
+        this.aliases = aliases;
+    }
+
+    public void displayHelp(IPrint ps) {
+        Snapshot current = snapshot;
+        String[] lines = current.help;
+        if (lines == null)
+            current.help = lines = renderHelp(current);
+        for (String line : lines)
+            ps.println(line);
+    }
+
+    private String[] renderHelp(Snapshot current) {
+        AnnotationCommand root = current.commands.get(null);
+        String title = " [ Command Help] ";
+
+        int maxWidth = 0;
+        maxWidth = Math.max(maxWidth, root.getName().length());
+        maxWidth = Math.max(maxWidth, ("Description: " + root.getDescription()).length());
+        maxWidth = Math.max(maxWidth, getKeyword().length());
+        maxWidth = Math.max(maxWidth, String.join(",", getAliases()).length());
+
+        maxWidth += 2;
+
+        List<String> lines = new ArrayList<>(current.commands.size() + 7);
+        lines.add(Util.strRepeat("-", maxWidth / 2 - title.length() / 2) + title + Util.strRepeat("-", maxWidth / 2 - title.length() / 2));
+        lines.add("Name: " + root.getName());
+        lines.add("Description: " + root.getDescription());
+        lines.add("Keyword: " + getKeyword());
+        lines.add("Aliases: " + String.join(",", getAliases()));
+        lines.add("");
+        lines.add("Sub-commands:");
+        for (Entry<String, AnnotationCommand> entry : current.commands.entrySet()) {
+            if (entry.getKey() != null)
+                lines.add("  - " + entry.getValue().getUsage());
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    public boolean invoke(IPrint ps, String[] parameters) {
+        return getRootCommand().invoke(ps, parameters);
+    }
+
+    public AnnotationCommand getCommand(String keyword) {
+        if (keyword == null)
+            return getRootCommand();
+        return snapshot.lookup.get(keyword);
+    }
+
+    AnnotationCommand getCommand(Tokenizer tokens, int index) {
+        return tokens.lookup(snapshot.lookup, index);
+    }
+
+    /**
+     * Returns the sub-command with the given keyword or alias, or if there is none, the sub-command whose keyword or aliases are the only ones
+     * starting with it. Abbreviations are resolved through a prefix tree of the keywords that records which keywords are unique, so this costs
+     * about the same as {@link #getCommand(String)}. Hidden sub-commands can't be abbreviated.
+     * 
+     * @param keyword
+     *            the keyword, alias or abbreviation of a sub-command.
+     * @return the sub-command, or null if none or more than one sub-command starts with the given keyword.
+     * @see #getCandidates(String, int)
+     */
+    public AnnotationCommand findCommand(String keyword) {
+        AnnotationCommand command = getCommand(keyword);
+        return (command != null || keyword == null) ? command : snapshot.keywords.abbreviation(keyword);
+    }
+
+    AnnotationCommand findCommand(Tokenizer tokens, int index) {
+        AnnotationCommand command = getCommand(tokens, index);
+        return (command != null) ? command : snapshot.keywords.abbreviation(tokens.get(index));
+    }
+
+    /**
+     * Returns the keywords of the sub-commands whose keyword or aliases start with the given abbreviation, for when it is ambiguous. Hidden
+     * sub-commands aren't included.
+     * 
+     * @param abbreviation
+     *            the start of a keyword or alias.
+     * @param limit
+     *            the maximum number of keywords to return.
+     * @return the keywords of the matching sub-commands, in order.
+     */
+    public List<String> getCandidates(String abbreviation, int limit) {
+        List<AnnotationCommand> commands = snapshot.keywords.candidates(abbreviation, limit);
+        if (commands.isEmpty())
+            return Collections.emptyList();
+        List<String> keywords = new ArrayList<>(commands.size());
+        for (AnnotationCommand command : commands)
+            keywords.add(command.getKeyword());
+        return keywords;
+    }
+
+    /**
+     * Returns the keywords and aliases of the sub-commands closest to the given keyword, for when no sub-command has it. Hidden sub-commands aren't
+     * suggested.
+     * 
+     * @param keyword
+     *            the keyword that wasn't found.
+     * @return up to three keywords or aliases, nearest first.
+     */
+    public List<String> getSuggestions(String keyword) {
+        return snapshot.keywords.suggest(keyword);
+    }
+
+    /**
+     * Adds the keywords and aliases of the sub-commands starting with the given prefix to the given list, in order, until the list holds the given
+     * number of elements. Hidden sub-commands aren't completed.
+     */
+    void completeCommand(CharSequence prefix, int limit, List<String> keywords) {
+        snapshot.keywords.complete(prefix, limit, keywords);
+    }
+
+    /**
+     * Returns the first of the given keyword and aliases that is already used by a sub-command of this container, or null if there are no
+     * conflicts.
+     * 
+     * @param keyword
+     *            the keyword to check.
+     * @param aliases
+     *            the aliases to check.
+     * @return the first conflicting keyword or alias, or null.
+     */
+    public String findConflict(String keyword, String[] aliases) {
+        return findConflict(snapshot.lookup, keyword, aliases);
+    }
+
+    private static String findConflict(KeywordIndex<AnnotationCommand> lookup, String keyword, String[] aliases) {
+        if (!keyword.isEmpty() && lookup.get(keyword) != null)
+            return keyword;
+        for (String alias : aliases) {
+            if (!alias.isEmpty() && lookup.get(alias) != null)
+                return alias;
+        }
+        return null;
+    }
+
+    public synchronized void setRootCommand(AnnotationCommand command) {
+        Map<String, AnnotationCommand> commands = new HashMap<>(snapshot.commands);
+        commands.put(null, command);
+        snapshot = new Snapshot(commands, snapshot.lookup, snapshot.keywords, snapshot.version + 1);
+    }
+
+    public synchronized boolean addCommand(AnnotationCommand command) {
+        Snapshot current = snapshot;
+        if (current.commands.containsKey(command.getKeyword()) || findConflict(current.lookup, command.getKeyword(), command.getAliases()) != null)
+            return false;
+
+        Map<String, AnnotationCommand> commands = new HashMap<>(current.commands);
+        commands.put(command.getKeyword(), command);
+
+        KeywordIndex<AnnotationCommand> lookup = current.lookup.copy();
+        if (!command.getKeyword().isEmpty())
+            lookup.putIfAbsent(command.getKeyword(), command);
+        for (String alias : command.getAliases()) {
+            if (!alias.isEmpty())
+                lookup.putIfAbsent(alias, command);
+        }
+
+        KeywordTrie<AnnotationCommand> keywords = current.keywords;
+        if (!command.isHidden()) {
+            keywords = keywords.add(command.getKeyword(), command);
+            for (String alias : command.getAliases())
+                keywords = keywords.add(alias, command);
+        }
+
+        snapshot = new Snapshot(commands, lookup, keywords, current.version + 1);
+        return true;
+    }
+
+    /**
+     * Returns the number of times the commands of this container have changed, so something built from its commands can tell when it is out of
+     * date without comparing them.
+     */
+    long version() {
+        return snapshot.version;
+    }
+
+    public AnnotationCommand getRootCommand() {
+        return snapshot.commands.get(null);
+    }
+
+    public boolean hasRootCommand() {
+        return snapshot.commands.containsKey(null);
+    }
+
+    /**
+     * Returns the commands of this container, keyed by keyword. The root command has the key null. The returned map is a snapshot and doesn't change
+     * when commands are added.
+     * 
+     * @return the commands of this container.
+     */
+    public Map<String, AnnotationCommand> getCommands() {
+        return snapshot.commands;
+    }
+
+    public Object getOwner() {
+        return owner;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public String[] getAliases() {
+        return aliases;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + Arrays.hashCode(aliases);
+        result = prime * result + snapshot.commands.hashCode();
+        result = prime * result + ((keyword == null) ? 0 : keyword.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        CommandContainer other = (CommandContainer) obj;
+        if (!Arrays.equals(aliases, other.aliases))
+            return false;
+        if (!snapshot.commands.equals(other.snapshot.commands))
+            return false;
+
+        if (keyword == null) {
+            if (other.keyword != null)
+                return false;
+        } else if (!keyword.equals(other.keyword))
+            return false;
+
+        return true;
+    }
+
+    /** The commands of a container and their lookup index, never modified once created. */
+    private static final class Snapshot {
+
+        final Map<String, AnnotationCommand> commands;
+        final KeywordIndex<AnnotationCommand> lookup;
+        /** The keywords and aliases of the sub-commands that aren't hidden, used for completions and suggestions. */
+        final KeywordTrie<AnnotationCommand> keywords;
+        /** The rendered help of the container, created when first displayed. A new snapshot is taken whenever a command is added. */
+        volatile String[] help;
+        /** The number of changes to the commands of the container up to this snapshot. */
+        final long version;
+
+        Snapshot(Map<String, AnnotationCommand> commands, KeywordIndex<AnnotationCommand> lookup, KeywordTrie<AnnotationCommand> keywords, long version) {
+            this.commands = Collections.unmodifiableMap(commands);
+            this.lookup = lookup;
+            this.keywords = keywords;
+            this.version = version;
+        }
+    }
+}
@@ -1,180 +1,1232 @@
-package com.github.maxstupo.jannocli;
-
-import java.io.InputStream;
-import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-
-import com.github.maxstupo.jannocli.annotation.Command;
-import com.github.maxstupo.jannocli.annotation.ParamAliases;
-import com.github.maxstupo.jannocli.annotation.ParamDescription;
-import com.github.maxstupo.jannocli.annotation.ParamTypes;
-import com.github.maxstupo.jannocli.cli.Cli;
-import com.github.maxstupo.jannocli.cli.IPrint;
-import com.github.maxstupo.jannocli.cli.SystemPrint;
-import com.github.maxstupo.jannocli.response.DefaultResponses;
-import com.github.maxstupo.jannocli.response.IResponses;
-
-/**
- * @author Maxstupo
- *
- */
-@Command(value = "help", aliases = "?")
-public class CommandLine extends Cli {
-
-    private final Map<String, CommandContainer> commands = new HashMap<>();
-
-    private IResponses responses = new DefaultResponses();
-
-    public CommandLine() {
-        this(System.in, new SystemPrint());
-    }
-
-    public CommandLine(InputStream is, IPrint ps) {
-        super(is, ps);
-        register(this);
-    }
-
-    @Command(description = "Displays help", name = "Help")
-    private void displayHelp(ExecutedCommand cmd) {
-
-        int usageWidth = 0;
-        int descWidth = 0;
-        for (Entry<String, CommandContainer> entry : commands.entrySet()) {
-            for (Entry<String, AnnotationCommand> entry2 : entry.getValue().getCommands().entrySet()) {
-                if (entry2.getValue().isHidden())
-                    continue;
-                usageWidth = Math.max(usageWidth, entry2.getValue().getUsage().length());
-                descWidth = Math.max(descWidth, entry2.getValue().getDescription().length());
-            }
-        }
-        usageWidth += 2;
-
-        final int totalWidth = usageWidth + descWidth + 5;
-        final String helpText = " [ Help ] ";
-
-        // Print help title.
-        cmd.cli.println(Util.strRepeat("-", totalWidth / 2 - helpText.length() / 2) + helpText + Util.strRepeat("-", totalWidth / 2 - helpText.length() / 2));
-
-        for (Entry<String, CommandContainer> entry : commands.entrySet()) {
-            for (Entry<String, AnnotationCommand> entry2 : entry.getValue().getCommands().entrySet()) {
-                if (entry2.getValue().isHidden())
-                    continue;
-                cmd.cli.println(String.format(" %-" + usageWidth + "s - %s", entry2.getValue().getUsage(), entry2.getValue().getDescription()));
-            }
-        }
-    }
-
-    public void register(Object obj) throws IllegalArgumentException {
-        Command commandInfo = obj.getClass().getAnnotation(Command.class);
-
-        if (commandInfo == null)
-            throw new IllegalArgumentException("The given class must have the Command annotation - " + obj.getClass().getName());
-
-        if (commandInfo.value().isEmpty())
-            throw new IllegalArgumentException("Command anotation must have value() set for object -" + obj.getClass().getName());
-
-        CommandContainer container = new CommandContainer(obj, commandInfo);
-
-        for (Method method : obj.getClass().getDeclaredMethods()) {
-            method.setAccessible(true);
-            if (!AnnotationCommand.hasCorrectParams(method))
-                continue;
-
-            Command subCommandInfo = method.getAnnotation(Command.class);
-            if (subCommandInfo == null)
-                continue;
-
-            ParamTypes filter = method.getAnnotation(ParamTypes.class);
-            ParamAliases aliases = method.getAnnotation(ParamAliases.class);
-            ParamDescription descriptions = method.getAnnotation(ParamDescription.class);
-
-            AnnotationCommand command = new AnnotationCommand(container, method, subCommandInfo, filter, aliases, descriptions);
-
-            if (subCommandInfo.value().isEmpty() && subCommandInfo.aliases().length == 1 && subCommandInfo.aliases()[0].isEmpty()) {
-                if (!container.hasRootCommand()) {
-                    container.setRootCommand(command);
-                } else {
-                    throw new IllegalArgumentException("Root command for " + obj.getClass().getName() + " already set!");
-                }
-            } else {
-                if (!container.addCommand(command))
-                    throw new IllegalArgumentException("A sub-command for " + obj.getClass().getName() + " already has the keyword - " + command.getKeyword());
-            }
-        }
-
-        if (!container.hasRootCommand())
-            throw new IllegalArgumentException("All registered objects must have a root command - " + obj.getClass().getName());
-        commands.put(commandInfo.value(), container);
-    }
-
-    public void parse(String line) {
-        processInput(getOut(), line);
-    }
-
-    @Override
-    protected void processInput(IPrint ps, String line) {
-        String[] tokens = Util.split(line);
-        // System.out.println("Tokens: " + Arrays.toString(tokens));
-
-        if (tokens.length > 0) {
-            CommandContainer container = getCommandContainer(tokens[0]);
-
-            if (container != null) {
-                if (tokens.length > 1) {
-
-                    if (tokens[1].equals("?")) {
-                        container.displayHelp(ps);
-                    } else {
-
-                        AnnotationCommand command = container.getCommand(tokens[1]);
-                        if (command != null) {
-                            if (tokens.length > 2 && tokens[2].equals("?")) {
-                                command.displayHelp(ps);
-                            } else {
-                                if (!command.invoke(ps, Util.shiftArray(2, tokens)))
-                                    command.displayHelp(ps);
-                            }
-                        } else {
-                            if (!container.invoke(ps, Util.shiftArray(1, tokens)))
-                                container.displayHelp(ps);
-                        }
-                    }
-                } else {
-                    if (!container.invoke(ps, Util.shiftArray(1, tokens)))
-                        container.displayHelp(ps);
-                }
-            } else {
-                ps.println(Util.replaceReferences(responses.getUnknownCommandResponse(), tokens[0]));
-            }
-        } else {
-            ps.println(responses.getNothingEnteredResponse());
-        }
-    }
-
-    public CommandContainer getCommandContainer(String keyword) {
-        CommandContainer container = commands.get(keyword);
-        if (container != null)
-            return container;
-
-        for (Entry<String, CommandContainer> entry : commands.entrySet()) {
-            String[] aliases = entry.getValue().getAliases();
-
-            for (String alias : aliases) {
-                if (keyword.equals(alias))
-                    return entry.getValue();
-            }
-        }
-        return null;
-    }
-
-    public IResponses getResponses() {
-        return responses;
-    }
-
-    public void setResponses(IResponses responses) {
-        this.responses = responses;
-    }
-
-}
+package com.github.maxstupo.jannocli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import com.github.maxstupo.jannocli.annotation.Command;
+import com.github.maxstupo.jannocli.annotation.ParamAliases;
+import com.github.maxstupo.jannocli.annotation.ParamDescription;
+import com.github.maxstupo.jannocli.annotation.ParamTypes;
+import com.github.maxstupo.jannocli.cli.Cli;
+import com.github.maxstupo.jannocli.cli.IInput;
+import com.github.maxstupo.jannocli.cli.IPrint;
+import com.github.maxstupo.jannocli.cli.SystemPrint;
+import com.github.maxstupo.jannocli.convert.ConverterRegistry;
+import com.github.maxstupo.jannocli.convert.IParamConverter;
+import com.github.maxstupo.jannocli.metrics.CommandMetrics;
+import com.github.maxstupo.jannocli.metrics.Metrics;
+import com.github.maxstupo.jannocli.metrics.MetricsSnapshot;
+import com.github.maxstupo.jannocli.metrics.Phase;
+import com.github.maxstupo.jannocli.response.DefaultResponses;
+import com.github.maxstupo.jannocli.response.IResponses;
+
+/**
+ * This class registers commands and dispatches lines of input to them.
+ * <p>
+ * Lines can be dispatched from any number of threads at once. The registered commands are held within an immutable snapshot that is replaced
+ * whenever a command is registered or unregistered, so a dispatch never waits for a lock and always sees a consistent set of commands.
+ * <p>
+ * Commands can be joined into a pipeline with <code>|</code>, such as <code>list | grep abc | head 5</code>. The stages run at once and each reads the
+ * lines printed by the previous stage from {@link ExecutedCommand#input} as they are printed, through a bounded {@link Pipe}, so the output of a
+ * stage is never held in memory as a whole. The last stage runs where the line is executed and the stages before it each run on a thread of their
+ * own, never on the {@link #getExecutor() executor}, which may be running the last stage and have no thread left for them.
+ * <p>
+ * Besides <code>help</code>, the built-in commands <code>source</code>, <code>grep</code>, <code>head</code>, <code>count</code> and <code>stats</code>
+ * are registered.
+ * A built-in command is replaced by any registered command with the same keyword or alias. <code>help &lt;terms...&gt;</code> searches the keywords,
+ * names and descriptions of the registered commands through an index kept up to date as commands are registered.
+ * <p>
+ * A partly typed line can be completed with {@link #complete(String, int)}, for consoles that complete on a key press.
+ * 
+ * @author Maxstupo
+ */
+@Command(value = "help", aliases = "?")
+public class CommandLine extends Cli {
+
+    /** The number of results displayed by a help search. */
+    private static final int MAX_HELP_RESULTS = 20;
+
+    /** The number of commands listed when an abbreviation is ambiguous. */
+    private static final int MAX_CANDIDATES = 10;
+
+    private final Object registryLock = new Object();
+    /** Built-in commands that are replaced by a registered command with the same keyword or alias, guarded by the registry lock. */
+    private final Set<CommandContainer> builtIns = Collections.newSetFromMap(new IdentityHashMap<CommandContainer, Boolean>());
+    private volatile Snapshot snapshot = new Snapshot(Collections.<String, CommandContainer> emptyMap(), new KeywordIndex<CommandContainer>(), KeywordTrie.<CommandContainer> empty());
+
+    private final ThreadLocal<Tokenizer> tokenizers = new ThreadLocal<>();
+    private final ConverterRegistry converters = new ConverterRegistry();
+    private final Metrics metrics = new Metrics();
+    private final HelpIndex helpIndex = new HelpIndex();
+
+    private volatile IResponses responses = new DefaultResponses();
+    private volatile boolean lazyParameters;
+    private volatile boolean abbreviatedKeywords;
+    private volatile boolean asyncInput;
+    private volatile Executor executor;
+
+    public CommandLine() {
+        this(System.in, new SystemPrint());
+    }
+
+    public CommandLine(InputStream is, IPrint ps) {
+        super(is, ps);
+        register(this);
+        registerBuiltIn(new SourceCommand(this));
+        registerBuiltIn(new GrepCommand());
+        registerBuiltIn(new HeadCommand());
+        registerBuiltIn(new CountCommand());
+        registerBuiltIn(new StatsCommand(this));
+    }
+
+    @Command(description = "Displays help, or searches it for the given terms", name = "Help")
+    @ParamAliases("terms")
+    @ParamDescription("words to search the keywords, names and descriptions of commands for")
+    private void displayHelp(ExecutedCommand cmd) {
+        if (cmd.parameters.getCount() > 0) {
+            searchHelp(cmd);
+            return;
+        }
+
+        Snapshot current = snapshot;
+        HelpListing help = current.help;
+        if (help == null || !help.isCurrent())
+            current.help = help = new HelpListing(current.commands.values());
+
+        for (String line : help.lines)
+            cmd.cli.println(line);
+    }
+
+    private void searchHelp(ExecutedCommand cmd) {
+        String[] terms = new String[cmd.parameters.getCount()];
+        for (int i = 0; i < terms.length; i++)
+            terms[i] = cmd.parameters.get(i);
+
+        HelpIndex.Results results = helpIndex.search(terms, MAX_HELP_RESULTS);
+        if (results.total == 0) {
+            cmd.cli.println(Util.replaceReferences(responses.getNoHelpFoundResponse(), String.join(" ", terms)));
+            return;
+        }
+
+        int usageWidth = 0;
+        int descWidth = 0;
+        for (HelpIndex.Entry entry : results.entries) {
+            usageWidth = Math.max(usageWidth, entry.usage.length());
+            descWidth = Math.max(descWidth, entry.description.length());
+        }
+        usageWidth += 2;
+
+        final int totalWidth = usageWidth + descWidth + 5;
+        final String helpText = " [ Help: " + String.join(" ", terms) + " ] ";
+
+        cmd.cli.println(Util.strRepeat("-", totalWidth / 2 - helpText.length() / 2) + helpText + Util.strRepeat("-", totalWidth / 2 - helpText.length() / 2));
+        StringBuilder sb = new StringBuilder();
+        for (HelpIndex.Entry entry : results.entries)
+            cmd.cli.println(entry.description.isEmpty() ? " " + entry.usage : helpLine(sb, entry.usage, usageWidth, entry.description));
+        if (results.total > results.entries.size())
+            cmd.cli.println(" ... " + (results.total - results.entries.size()) + " more, add terms to narrow the search");
+    }
+
+    /**
+     * Registers a converter for parameters of the converter's type, replacing any built-in or discovered converter for that type. Converters are
+     * bound to parameters when a command is registered, so they must be registered before the commands that use them.
+     * 
+     * @param converter
+     *            the converter to register.
+     */
+    public void registerConverter(IParamConverter<?> converter) {
+        converters.register(converter);
+    }
+
+    public void register(Object obj) throws IllegalArgumentException {
+        add(bindConverters(createContainer(obj)), obj.getClass().getName());
+    }
+
+    /**
+     * Registers the commands of the given owner using a registry generated by the command annotation processor, without using reflection.
+     * 
+     * @param registry
+     *            the generated registry for the type of <code>owner</code>.
+     * @param owner
+     *            the object that owns the commands.
+     * @throws IllegalArgumentException
+     *             if the keyword or an alias of the command is already registered.
+     */
+    public void register(ICommandRegistry registry, Object owner) throws IllegalArgumentException {
+        add(bindConverters(createContainer(registry, owner)), registry.getOwnerType().getName());
+    }
+
+    /**
+     * Registers the commands of the given type without creating an instance of it. Only the keyword and aliases of the type are read now; the
+     * <code>factory</code> is called and the commands are introspected the first time the command is used or help is displayed for it.
+     * <p>
+     * This is useful for commands whose owners are expensive to create and are rarely used. Errors within the command type (such as a missing
+     * root command) are only reported when it is first used.
+     * 
+     * @param type
+     *            the type that owns the commands, must have the {@link Command} annotation.
+     * @param factory
+     *            creates the owner of the commands, called at most once (unless it fails).
+     * @throws IllegalArgumentException
+     *             if the type doesn't have the {@link Command} annotation or if the keyword or an alias of the command is already registered.
+     */
+    public <T> void register(final Class<T> type, final Supplier<? extends T> factory) throws IllegalArgumentException {
+        final ICommandRegistry generated = GeneratedRegistries.get(type);
+
+        String keyword;
+        String[] aliases;
+        if (generated != null) {
+            keyword = generated.getKeyword();
+            aliases = generated.getAliases();
+        } else {
+            Command commandInfo = getCommandInfo(type);
+            keyword = commandInfo.value();
+            aliases = commandInfo.aliases();
+        }
+
+        add(new LazyCommandContainer(keyword, aliases, new LazyCommandContainer.Loader() {
+
+            @Override
+            public CommandContainer load() {
+                T owner = factory.get();
+                if (!type.isInstance(owner))
+                    throw new IllegalArgumentException("The factory for " + type.getName() + " must create an instance of it");
+                return bindConverters((generated != null) ? createContainer(generated, owner) : createContainer(owner));
+            }
+        }), type.getName());
+    }
+
+    private static CommandContainer createContainer(ICommandRegistry registry, Object owner) {
+        if (!registry.getOwnerType().isInstance(owner))
+            throw new IllegalArgumentException("The given owner isn't an instance of " + registry.getOwnerType().getName());
+
+        CommandContainer container = registry.createContainer(owner);
+        if (!container.hasRootCommand())
+            throw new IllegalArgumentException("All registered objects must have a root command - " + registry.getOwnerType().getName());
+        return container;
+    }
+
+    private static CommandContainer createContainer(Object obj) {
+        ICommandRegistry generated = GeneratedRegistries.get(obj.getClass());
+        if (generated != null)
+            return createContainer(generated, obj);
+
+        CommandContainer container = new CommandContainer(obj, getCommandInfo(obj.getClass()));
+
+        for (Method method : obj.getClass().getDeclaredMethods()) {
+            Command subCommandInfo = method.getAnnotation(Command.class);
+            if (subCommandInfo == null)
+                continue;
+
+            if (!AnnotationCommand.hasCorrectParams(method))
+                continue;
+
+            ParamTypes filter = method.getAnnotation(ParamTypes.class);
+            ParamAliases aliases = method.getAnnotation(ParamAliases.class);
+            ParamDescription descriptions = method.getAnnotation(ParamDescription.class);
+
+            AnnotationCommand command = new AnnotationCommand(container, method, subCommandInfo, filter, aliases, descriptions);
+
+            if (subCommandInfo.value().isEmpty() && subCommandInfo.aliases().length == 1 && subCommandInfo.aliases()[0].isEmpty()) {
+                if (!container.hasRootCommand()) {
+                    container.setRootCommand(command);
+                } else {
+                    throw new IllegalArgumentException("Root command for " + obj.getClass().getName() + " already set!");
+                }
+            } else {
+                String subConflict = container.findConflict(command.getKeyword(), command.getAliases());
+                if (subConflict != null || !container.addCommand(command))
+                    throw new IllegalArgumentException("A sub-command for " + obj.getClass().getName() + " already has the keyword or alias - " + (subConflict != null ? subConflict : command.getKeyword()));
+            }
+        }
+
+        if (!container.hasRootCommand())
+            throw new IllegalArgumentException("All registered objects must have a root command - " + obj.getClass().getName());
+        return container;
+    }
+
+    /** Binds the converters registered with this command-line to the parameters of each command within the given container. */
+    private CommandContainer bindConverters(CommandContainer container) {
+        if (!converters.isEmpty()) {
+            for (AnnotationCommand command : container.getCommands().values())
+                command.bindConverters(converters);
+        }
+        return container;
+    }
+
+    private static Command getCommandInfo(Class<?> type) {
+        Command commandInfo = type.getAnnotation(Command.class);
+
+        if (commandInfo == null)
+            throw new IllegalArgumentException("The given class must have the Command annotation - " + type.getName());
+
+        if (commandInfo.value().isEmpty())
+            throw new IllegalArgumentException("Command anotation must have value() set for object -" + type.getName());
+        return commandInfo;
+    }
+
+    /** Registers a built-in command, which a command registered later can replace. */
+    private void registerBuiltIn(Object obj) {
+        CommandContainer container = createContainer(obj);
+        synchronized (registryLock) {
+            add(container, obj.getClass().getName());
+            builtIns.add(container);
+        }
+    }
+
+    private void add(CommandContainer container, String ownerName) {
+        synchronized (registryLock) {
+            Snapshot current = snapshot;
+            Map<String, CommandContainer> commands = new HashMap<>(current.commands);
+            KeywordIndex<CommandContainer> lookup = current.lookup;
+            KeywordTrie<CommandContainer> keywords = current.keywords;
+
+            // Every conflict is checked before anything is removed, so a registration that fails leaves the built-in commands in place.
+            Set<CommandContainer> replaced = Collections.newSetFromMap(new IdentityHashMap<CommandContainer, Boolean>());
+            String[] aliases = container.getAliases();
+            for (int i = -1; i < aliases.length; i++) {
+                String conflict = (i == -1) ? container.getKeyword() : aliases[i];
+                CommandContainer existing = (i == -1 || !conflict.isEmpty()) ? lookup.get(conflict) : null;
+                if (existing == null)
+                    continue;
+                if (!builtIns.contains(existing))
+                    throw new IllegalArgumentException("A command with the keyword or alias '" + conflict + "' is already registered - " + ownerName);
+                replaced.add(existing);
+            }
+
+            if (!replaced.isEmpty()) {
+                for (CommandContainer existing : replaced) {
+                    builtIns.remove(existing);
+                    commands.remove(existing.getKeyword());
+                    helpIndex.remove(existing);
+                }
+                lookup = index(commands);
+                keywords = keywords(commands);
+            }
+
+            commands.put(container.getKeyword(), container);
+            helpIndex.add(container);
+
+            if (lookup == current.lookup)
+                lookup = lookup.copy();
+            index(lookup, container);
+
+            snapshot = new Snapshot(commands, lookup, keywords(keywords, container));
+        }
+    }
+
+    /**
+     * Unregisters the command with the given keyword or alias. Lines already being dispatched to the command are not affected.
+     * 
+     * @param keyword
+     *            the keyword or an alias of the command.
+     * @return the container of the unregistered command, or null if no command has the given keyword or alias.
+     */
+    public CommandContainer unregister(String keyword) {
+        synchronized (registryLock) {
+            Snapshot current = snapshot;
+
+            CommandContainer container = current.lookup.get(keyword);
+            if (container == null)
+                return null;
+
+            Map<String, CommandContainer> commands = new HashMap<>(current.commands);
+            commands.remove(container.getKeyword());
+            builtIns.remove(container);
+            helpIndex.remove(container);
+
+            snapshot = new Snapshot(commands, index(commands), keywords(commands));
+            return container;
+        }
+    }
+
+    /** Creates an index of the given commands. The index doesn't support removal, so it is rebuilt whenever a command is removed. */
+    private static KeywordIndex<CommandContainer> index(Map<String, CommandContainer> commands) {
+        KeywordIndex<CommandContainer> lookup = new KeywordIndex<>();
+        for (CommandContainer container : commands.values())
+            index(lookup, container);
+        return lookup;
+    }
+
+    private static void index(KeywordIndex<CommandContainer> lookup, CommandContainer container) {
+        lookup.putIfAbsent(container.getKeyword(), container);
+        for (String alias : container.getAliases()) {
+            if (!alias.isEmpty())
+                lookup.putIfAbsent(alias, container);
+        }
+    }
+
+    /** Creates a tree of the keywords and aliases of the given commands. The tree doesn't support removal, so it is rebuilt whenever a command is removed. */
+    private static KeywordTrie<CommandContainer> keywords(Map<String, CommandContainer> commands) {
+        KeywordTrie<CommandContainer> keywords = KeywordTrie.empty();
+        for (CommandContainer container : commands.values())
+            keywords = keywords(keywords, container);
+        return keywords;
+    }
+
+    private static KeywordTrie<CommandContainer> keywords(KeywordTrie<CommandContainer> keywords, CommandContainer container) {
+        keywords = keywords.add(container.getKeyword(), container);
+        for (String alias : container.getAliases())
+            keywords = keywords.add(alias, container);
+        return keywords;
+    }
+
+    /**
+     * Dispatches the given line on the current thread, returning once the command has executed.
+     * 
+     * @param line
+     *            the line to dispatch.
+     * @return the outcome of dispatching the line.
+     */
+    public CommandResult parse(String line) {
+        return dispatch(getOut(), line, null, null);
+    }
+
+    /**
+     * Dispatches the given line on the current thread, giving the command the given output instead of the output of this command-line. This allows
+     * one command-line to serve several outputs at once, such as the sessions of a {@link com.github.maxstupo.jannocli.server.CommandServer}.
+     * 
+     * @param ps
+     *            the output for the command.
+     * @param line
+     *            the line to dispatch.
+     * @return the outcome of dispatching the line.
+     */
+    public CommandResult parse(IPrint ps, CharSequence line) {
+        return dispatch(ps, line, null, null);
+    }
+
+    /**
+     * Dispatches the given line, executing the command on the {@link #setExecutor(Executor) executor}. The line is tokenized, the command is found
+     * and its parameters are converted on the current thread, so only the command itself is executed on the executor. Help and error responses are
+     * displayed on the current thread and the returned future is already complete.
+     * 
+     * @param line
+     *            the line to dispatch.
+     * @return a future completed with the outcome once the command has executed.
+     */
+    public CompletableFuture<CommandResult> parseAsync(String line) {
+        CompletableFuture<CommandResult> future = new CompletableFuture<>();
+        CommandResult result = dispatch(getOut(), line, getExecutor(), future);
+        if (result != null)
+            future.complete(result);
+        return future;
+    }
+
+    /**
+     * Runs each line of the given file as a command, stopping at the first line that fails.
+     * 
+     * @param path
+     *            the script to run.
+     * @return the outcome of the script.
+     * @throws IOException
+     *             if the file can't be read.
+     * @see ScriptRunner
+     */
+    public ScriptResult runScript(Path path) throws IOException {
+        return runScript(path, ScriptRunner.ErrorPolicy.STOP);
+    }
+
+    /**
+     * Runs each line of the given file as a command.
+     * 
+     * @param path
+     *            the script to run.
+     * @param errorPolicy
+     *            what happens when a line fails.
+     * @return the outcome of the script.
+     * @throws IOException
+     *             if the file can't be read.
+     * @see ScriptRunner
+     */
+    public ScriptResult runScript(Path path, ScriptRunner.ErrorPolicy errorPolicy) throws IOException {
+        ScriptRunner runner = new ScriptRunner(this);
+        runner.setErrorPolicy(errorPolicy);
+        return runner.run(path);
+    }
+
+    @Override
+    protected void processInput(IPrint ps, String line) {
+        processInput(ps, (CharSequence) line);
+    }
+
+    @Override
+    protected void processInput(IPrint ps, CharSequence line) {
+        if (asyncInput) {
+            CompletableFuture<CommandResult> future = new CompletableFuture<>();
+            if (dispatch(ps, line, getExecutor(), future) == null) {
+                future.whenComplete((result, e) -> {
+                    if (e != null)
+                        e.printStackTrace();
+                });
+            }
+        } else {
+            dispatch(ps, line, null, null);
+        }
+    }
+
+    /**
+     * Dispatches the given line. If an executor is given the command is executed on it and null is returned, the outcome is given to
+     * <code>future</code> instead. The output is flushed once the line has been dispatched, and again after an asynchronous command.
+     */
+    private CommandResult dispatch(IPrint ps, CharSequence line, Executor executor, CompletableFuture<CommandResult> future) {
+        try {
+            return dispatchUnflushed(ps, line, abbreviatedKeywords, executor, future);
+        } finally {
+            ps.flush();
+        }
+    }
+
+    /**
+     * Dispatches the given line on the current thread without flushing the output, so a script can flush once at the end instead of per line. The
+     * script decides if keywords can be abbreviated, rather than this command-line.
+     */
+    CommandResult dispatchUnflushed(IPrint ps, CharSequence line, boolean abbreviate) {
+        return dispatchUnflushed(ps, line, abbreviate, null, null);
+    }
+
+    private CommandResult dispatchUnflushed(IPrint ps, CharSequence line, boolean abbreviate, Executor executor, CompletableFuture<CommandResult> future) {
+        Tokenizer tokens = acquireTokenizer();
+        try {
+            if (metrics.isEnabled()) {
+                long start = System.nanoTime();
+                tokens.tokenize(line);
+                metrics.record(Phase.TOKENIZE, System.nanoTime() - start);
+            } else {
+                tokens.tokenize(line);
+            }
+
+            if (tokens.pipeCount() > 0)
+                return dispatchPipeline(ps, tokens, abbreviate, executor, future);
+            return dispatch(ps, tokens, 0, tokens.count(), abbreviate, executor, future);
+        } finally {
+            tokenizers.set(tokens);
+        }
+    }
+
+    /**
+     * Returns true if the given line would dispatch to a {@link com.github.maxstupo.jannocli.annotation.Serial serial} command, in any stage of a
+     * pipeline.
+     */
+    boolean isSerial(CharSequence line, boolean abbreviate) {
+        Tokenizer tokens = acquireTokenizer();
+        try {
+            tokens.tokenize(line);
+            int from = 0;
+            for (int i = 0; i <= tokens.pipeCount(); i++) {
+                int to = (i < tokens.pipeCount()) ? tokens.pipe(i) : tokens.count();
+                if (isSerial(tokens, from, to, abbreviate))
+                    return true;
+                from = to;
+            }
+            return false;
+        } finally {
+            tokenizers.set(tokens);
+        }
+    }
+
+    private boolean isSerial(Tokenizer tokens, int from, int to, boolean abbreviate) {
+        if (from == to)
+            return false;
+
+        CommandContainer container = findContainer(snapshot, tokens, from, abbreviate);
+        if (container == null)
+            return false;
+
+        AnnotationCommand command = (to - from > 1) ? findCommand(container, tokens, from + 1, abbreviate) : null;
+        if (command == null)
+            command = container.getRootCommand();
+        return command != null && command.isSerial();
+    }
+
+    /**
+     * Dispatches the tokens between <code>from</code> (inclusive) and <code>to</code> (exclusive). Each level works on offsets into the same
+     * tokenizer, the parameter strings are only created once a command is found.
+     */
+    private CommandResult dispatch(IPrint ps, Tokenizer tokens, int from, int to, boolean abbreviate, Executor executor, CompletableFuture<CommandResult> future) {
+        Stage stage = new Stage();
+        CommandResult result = resolve(ps, tokens, from, to, abbreviate, stage);
+        if (result != null)
+            return result;
+        return execute(ps, stage, executor, future);
+    }
+
+    /**
+     * Finds the command for the tokens between <code>from</code> (inclusive) and <code>to</code> (exclusive) and parses its parameters into the
+     * given stage. Returns null if the command can be executed, otherwise the result after the response or help has been displayed.
+     */
+    private CommandResult resolve(IPrint ps, Tokenizer tokens, int from, int to, boolean abbreviate, Stage stage) {
+        boolean timed = metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        int count = to - from;
+
+        if (count == 0) {
+            ps.println(responses.getNothingEnteredResponse());
+            return count(timed, CommandResult.EMPTY);
+        }
+
+        Snapshot current = snapshot;
+        CommandContainer container = findContainer(current, tokens, from, abbreviate);
+        if (container == null) {
+            String keyword = tokens.getString(from);
+            List<CommandContainer> candidates = abbreviate ? current.keywords.candidates(keyword, MAX_CANDIDATES) : Collections.<CommandContainer> emptyList();
+            if (candidates.isEmpty()) {
+                ps.println(Util.replaceReferences(responses.getUnknownCommandResponse(), keyword));
+                suggest(ps, keyword, current.keywords.suggest(keyword));
+            } else {
+                List<String> keywords = new ArrayList<>(candidates.size());
+                for (CommandContainer candidate : candidates)
+                    keywords.add(candidate.getKeyword());
+                ambiguous(ps, keyword, keywords);
+            }
+            return count(timed, CommandResult.UNKNOWN_COMMAND);
+        }
+
+        if (count > 1 && tokens.equals(from + 1, "?")) {
+            container.displayHelp(ps);
+            return count(timed, CommandResult.HELP);
+        }
+
+        AnnotationCommand command = (count > 1) ? findCommand(container, tokens, from + 1, abbreviate) : null;
+        if (command == null && count > 1 && abbreviate) {
+            // An ambiguous abbreviation of a sub-command is reported rather than given to the root command, as a unique one would have been taken.
+            String keyword = tokens.getString(from + 1);
+            List<String> candidates = container.getCandidates(keyword, MAX_CANDIDATES);
+            if (!candidates.isEmpty()) {
+                ambiguous(ps, keyword, candidates);
+                return count(timed, CommandResult.UNKNOWN_COMMAND);
+            }
+        }
+
+        String unknownSubCommand = null;
+        if (command == null) {
+            if (count > 1)
+                unknownSubCommand = tokens.getString(from + 1);
+            // Help is displayed for the container, as the parameters may have been meant for a sub-command.
+            stage.command = container.getRootCommand();
+            stage.container = container;
+            from += 1;
+        } else {
+            if (count > 2 && tokens.equals(from + 2, "?")) {
+                command.displayHelp(ps);
+                return count(timed, CommandResult.HELP);
+            }
+            stage.command = command;
+            from += 2;
+        }
+
+        if (timed) {
+            long now = System.nanoTime();
+            metrics.record(Phase.RESOLVE, now - start);
+            start = now;
+        }
+
+        stage.params = stage.command.parse(tokens, from, to, lazyParameters);
+
+        if (timed) {
+            CommandMetrics commandMetrics = stage.command.metrics();
+            commandMetrics.recordParse(System.nanoTime() - start);
+            if (stage.params == null)
+                commandMetrics.recordInvalidParameters();
+        }
+
+        if (stage.params == null)
+            stage.displayHelp(ps);
+
+        // The parameters of the root command may start with a mistyped sub-command, which is pointed out even if the root command accepts them.
+        if (unknownSubCommand != null)
+            suggest(ps, unknownSubCommand, container.getSuggestions(unknownSubCommand));
+        return (stage.params == null) ? CommandResult.HELP : null;
+    }
+
+    /** Returns the container with the keyword or alias at the given index, or the only one it is an abbreviation of. */
+    private static CommandContainer findContainer(Snapshot current, Tokenizer tokens, int index, boolean abbreviate) {
+        CommandContainer container = tokens.lookup(current.lookup, index);
+        return (container != null || !abbreviate) ? container : current.keywords.abbreviation(tokens.get(index));
+    }
+
+    private static AnnotationCommand findCommand(CommandContainer container, Tokenizer tokens, int index, boolean abbreviate) {
+        return abbreviate ? container.findCommand(tokens, index) : container.getCommand(tokens, index);
+    }
+
+    private void ambiguous(IPrint ps, String keyword, List<String> candidates) {
+        String response = responses.getAmbiguousCommandResponse();
+        if (response != null)
+            ps.println(Util.replaceReferences(response, keyword, quote(candidates)));
+    }
+
+    private void suggest(IPrint ps, String keyword, List<String> suggestions) {
+        if (suggestions.isEmpty())
+            return;
+        String response = responses.getSuggestionResponse();
+        if (response != null)
+            ps.println(Util.replaceReferences(response, keyword, quote(suggestions)));
+    }
+
+    /** Returns the given keywords quoted and separated by commas, for a response. */
+    private static String quote(List<String> keywords) {
+        StringBuilder sb = new StringBuilder();
+        for (String keyword : keywords) {
+            if (sb.length() > 0)
+                sb.append(", ");
+            sb.append('\'').append(keyword).append('\'');
+        }
+        return sb.toString();
+    }
+
+    private CommandResult count(boolean timed, CommandResult result) {
+        if (timed)
+            metrics.count(result);
+        return result;
+    }
+
+    /**
+     * Executes the given stage, on the given executor if there is one.
+     */
+    private CommandResult execute(final IPrint ps, final Stage stage, Executor executor, final CompletableFuture<CommandResult> future) {
+        if (executor == null)
+            return stage.execute(ps, ps, IInput.EMPTY, metrics);
+
+        try {
+            executor.execute(() -> {
+                try {
+                    CommandResult result = stage.execute(ps, ps, IInput.EMPTY, metrics);
+                    ps.flush();
+                    future.complete(result);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return null;
+    }
+
+    /**
+     * Dispatches a pipeline (<code>a | b | c</code>). Every stage is resolved before any is executed, so a stage with an unknown command or invalid
+     * parameters stops the whole pipeline. The outcome is the outcome of the last stage.
+     */
+    private CommandResult dispatchPipeline(final IPrint ps, Tokenizer tokens, boolean abbreviate, Executor executor, final CompletableFuture<CommandResult> future) {
+        final Stage[] stages = new Stage[tokens.pipeCount() + 1];
+
+        int from = 0;
+        for (int i = 0; i < stages.length; i++) {
+            int to = (i < tokens.pipeCount()) ? tokens.pipe(i) : tokens.count();
+            stages[i] = new Stage();
+            CommandResult result = resolve(ps, tokens, from, to, abbreviate, stages[i]);
+            if (result != null)
+                return result;
+            from = to;
+        }
+
+        if (executor == null)
+            return executePipeline(ps, stages);
+
+        try {
+            executor.execute(() -> {
+                try {
+                    CommandResult result = executePipeline(ps, stages);
+                    ps.flush();
+                    future.complete(result);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return null;
+    }
+
+    /**
+     * Executes the stages of a pipeline at once, each connected to the next by a {@link Pipe}. Every stage but the last is executed on a
+     * thread of its own from {@link DefaultExecutor}, the last on the current thread. Help displayed by a stage goes to the given output rather than down the pipe.
+     * Returns once every stage has finished.
+     */
+    private CommandResult executePipeline(IPrint ps, Stage[] stages) {
+        final CountDownLatch finished = new CountDownLatch(stages.length - 1);
+        // This thread may belong to the executor and waits for the other stages, so they aren't queued behind it on a bounded executor.
+        Executor executor = DefaultExecutor.INSTANCE;
+
+        IInput input = IInput.EMPTY;
+        for (int i = 0; i < stages.length - 1; i++) {
+            final Stage stage = stages[i];
+            final IInput stageInput = input;
+            final Pipe pipe = new Pipe();
+
+            Runnable task = () -> {
+                try {
+                    stage.execute(pipe, ps, stageInput, metrics);
+                } finally {
+                    pipe.closeWriter();
+                    close(stageInput);
+                    finished.countDown();
+                }
+            };
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                e.printStackTrace();
+                pipe.closeWriter();
+                close(stageInput);
+                finished.countDown();
+            }
+            input = pipe;
+        }
+
+        try {
+            return stages[stages.length - 1].execute(ps, ps, input, metrics);
+        } finally {
+            close(input);
+
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void close(IInput input) {
+        if (input instanceof Pipe)
+            ((Pipe) input).closeReader();
+    }
+
+    /**
+     * Returns the tokenizer of the current thread. A new tokenizer is returned if the current one is in use, which happens when a command
+     * dispatches another line from within its logic.
+     */
+    private Tokenizer acquireTokenizer() {
+        Tokenizer tokens = tokenizers.get();
+        if (tokens == null)
+            return new Tokenizer();
+        tokenizers.set(null);
+        return tokens;
+    }
+
+    public CommandContainer getCommandContainer(String keyword) {
+        return snapshot.lookup.get(keyword);
+    }
+
+    /**
+     * Returns the command with the given keyword or alias, or if there is none, the command whose keyword or aliases are the only ones starting with
+     * it. Abbreviations are resolved through a prefix tree of the registered keywords that records which keywords are unique, so this costs about
+     * the same as {@link #getCommandContainer(String)}.
+     * 
+     * @param keyword
+     *            the keyword, alias or abbreviation of a command.
+     * @return the command, or null if none or more than one command starts with the given keyword.
+     * @see #setAbbreviatedKeywords(boolean)
+     */
+    public CommandContainer findCommandContainer(String keyword) {
+        Snapshot current = snapshot;
+        CommandContainer container = current.lookup.get(keyword);
+        return (container != null) ? container : current.keywords.abbreviation(keyword);
+    }
+
+    /**
+     * Returns the keywords of the commands whose keyword or aliases start with the given abbreviation, for when it is ambiguous.
+     * 
+     * @param abbreviation
+     *            the start of a keyword or alias.
+     * @param limit
+     *            the maximum number of keywords to return.
+     * @return the keywords of the matching commands, in order.
+     */
+    public List<String> getCandidates(String abbreviation, int limit) {
+        List<CommandContainer> containers = snapshot.keywords.candidates(abbreviation, limit);
+        if (containers.isEmpty())
+            return Collections.emptyList();
+        List<String> keywords = new ArrayList<>(containers.size());
+        for (CommandContainer container : containers)
+            keywords.add(container.getKeyword());
+        return keywords;
+    }
+
+    /**
+     * Returns the registered keywords and aliases closest to the given keyword, for when no command has it. The suggestions are found in a tree of
+     * the keywords kept up to date as commands are registered, so this doesn't compare the keyword to every registered command. Keywords of one
+     * character are never suggested, and a keyword of up to three characters is only compared to keywords starting with the same character.
+     * 
+     * @param keyword
+     *            the keyword that wasn't found.
+     * @return up to three keywords or aliases, nearest first.
+     * @see CommandContainer#getSuggestions(String)
+     */
+    public List<String> getSuggestions(String keyword) {
+        return snapshot.keywords.suggest(keyword);
+    }
+
+    /**
+     * Returns the completions of the token at the cursor of a partly typed line. The first token of a command completes to the registered keywords
+     * and aliases, the second to the keywords and aliases of the sub-commands and any value of the first parameter of the root command, and the
+     * rest to the values of the parameter at their position, see {@link #complete(String, int, int)}. Only the last stage of a pipeline is
+     * completed, and the text after the cursor is ignored.
+     * 
+     * @param line
+     *            the line being typed.
+     * @param cursor
+     *            the position of the cursor within the line.
+     * @return the completions of the token at the cursor.
+     */
+    public Completion complete(String line, int cursor) {
+        return complete(line, cursor, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns up to the given number of completions of the token at the cursor of a partly typed line.
+     * <p>
+     * Keywords and aliases are completed from prefix trees kept up to date as commands are registered, so a completion takes time proportional to the
+     * length of the token and the number of completions returned, not the number of registered commands. Keywords are matched exactly, as they
+     * are looked up, though the tokens before the one completed can be abbreviations if {@link #setAbbreviatedKeywords(boolean) abbreviated
+     * keywords} are enabled. Enum parameters complete to their constants and boolean parameters to <code>true</code> or <code>false</code>, ignoring case.
+     * Completing the sub-commands of a lazily registered command creates it.
+     * 
+     * @param line
+     *            the line being typed.
+     * @param cursor
+     *            the position of the cursor within the line.
+     * @param limit
+     *            the maximum number of completions to return.
+     * @return the completions of the token at the cursor.
+     */
+    public Completion complete(String line, int cursor, int limit) {
+        Tokenizer tokens = acquireTokenizer();
+        try {
+            tokens.tokenize(line.substring(0, cursor));
+
+            // The token being completed is the last one if the line ended within it, otherwise a new token is started at the cursor.
+            int to = tokens.count();
+            int from = (tokens.pipeCount() > 0) ? tokens.pipe(tokens.pipeCount() - 1) : 0;
+            int start = cursor;
+            String prefix = "";
+            if (tokens.openTokenStart() != -1) {
+                start = tokens.openTokenStart();
+                prefix = tokens.getString(--to);
+            }
+
+            List<String> candidates = new ArrayList<>();
+            if (limit > 0)
+                complete(tokens, from, to, prefix, limit, candidates);
+            return new Completion(start, prefix, candidates);
+        } finally {
+            tokenizers.set(tokens);
+        }
+    }
+
+    /**
+     * Completes a token following the tokens from <code>from</code> (inclusive) to <code>to</code> (exclusive).
+     */
+    private void complete(Tokenizer tokens, int from, int to, String prefix, int limit, List<String> candidates) {
+        int count = to - from;
+        Snapshot current = snapshot;
+        if (count == 0) {
+            current.keywords.complete(prefix, limit, candidates);
+            return;
+        }
+
+        boolean abbreviate = abbreviatedKeywords;
+        CommandContainer container = findContainer(current, tokens, from, abbreviate);
+        if (container == null)
+            return;
+
+        if (count == 1) {
+            container.completeCommand(prefix, limit, candidates);
+            AnnotationCommand root = container.getRootCommand();
+            if (root != null)
+                root.completeParam(0, prefix, limit, candidates);
+            return;
+        }
+
+        AnnotationCommand command = findCommand(container, tokens, from + 1, abbreviate);
+        if (command != null) {
+            command.completeParam(count - 2, prefix, limit, candidates);
+        } else if (container.getRootCommand() != null) {
+            container.getRootCommand().completeParam(count - 1, prefix, limit, candidates);
+        }
+    }
+
+    /**
+     * Returns the metrics of this command-line, which can be turned on or off at any time with {@link Metrics#setEnabled(boolean)}. Metrics are
+     * off by default.
+     * 
+     * @return the metrics of this command-line.
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns a copy of the metrics of this command-line and of each registered command that has recorded any. Commands registered with
+     * {@link #register(Class, Supplier)} that haven't been used yet aren't loaded to check them.
+     * 
+     * @return a snapshot of the metrics.
+     */
+    public MetricsSnapshot getMetricsSnapshot() {
+        return metrics.snapshot(commandMetrics());
+    }
+
+    /**
+     * Removes every recorded metric, of this command-line and of each registered command.
+     */
+    public void resetMetrics() {
+        metrics.reset();
+        for (CommandMetrics commandMetrics : commandMetrics().values())
+            commandMetrics.reset();
+    }
+
+    /** Returns the metrics of each registered command that has recorded any, by the keywords that dispatch to it. */
+    private Map<String, CommandMetrics> commandMetrics() {
+        Map<String, CommandMetrics> commands = new HashMap<>();
+        for (CommandContainer container : snapshot.commands.values()) {
+            if (container instanceof LazyCommandContainer && !((LazyCommandContainer) container).isLoaded())
+                continue;
+
+            for (AnnotationCommand command : container.getCommands().values()) {
+                CommandMetrics commandMetrics = command.getMetrics();
+                if (commandMetrics != null)
+                    commands.put(command == container.getRootCommand() ? container.getKeyword() : container.getKeyword() + " " + command.getKeyword(), commandMetrics);
+            }
+        }
+        return commands;
+    }
+
+    public boolean isLazyParameters() {
+        return lazyParameters;
+    }
+
+    /**
+     * Sets if untyped parameters are created lazily. When enabled, parameters without a type given by {@link ParamTypes} are kept as offsets into
+     * the input line and only become strings when the command reads them, so commands given many arguments only pay for the ones they use. Typed
+     * parameters are always converted before the command is invoked, as an invalid parameter displays the command help instead.
+     * <p>
+     * A line given as a {@link String} is shared by the parameters as it is. Any other line, such as one read from the console by {@link Cli} into a
+     * reused buffer, is copied into a single string when the first parameter of the command is deferred.
+     * 
+     * @param lazyParameters
+     *            true to create untyped parameters lazily.
+     */
+    public void setLazyParameters(boolean lazyParameters) {
+        this.lazyParameters = lazyParameters;
+    }
+
+    public boolean isAbbreviatedKeywords() {
+        return abbreviatedKeywords;
+    }
+
+    /**
+     * Sets if keywords can be abbreviated, false by default. When enabled, a keyword or sub-command keyword that isn't found stands for the command
+     * whose keyword or aliases are the only ones starting with it, so <code>cl st</code> runs <code>client status</code> if nothing else starts with
+     * <code>cl</code> or, within <code>client</code>, with <code>st</code>. An abbreviation of more than one command lists them instead. Hidden
+     * sub-commands can't be abbreviated, and a parameter of a root command that is the start of a sub-command keyword is taken as that
+     * sub-command.
+     * <p>
+     * An abbreviation that works today can become ambiguous once more commands are registered, so scripts are run with exact keywords unless their
+     * {@link ScriptRunner} is told otherwise, see {@link ScriptRunner#setAbbreviatedKeywords(boolean)}.
+     * 
+     * @param abbreviatedKeywords
+     *            true to allow abbreviated keywords.
+     */
+    public void setAbbreviatedKeywords(boolean abbreviatedKeywords) {
+        this.abbreviatedKeywords = abbreviatedKeywords;
+    }
+
+    /**
+     * Returns the executor commands dispatched with {@link #parseAsync(String)}, input read with {@link #isAsyncInput() asynchronous input} and the
+     * commands of {@link com.github.maxstupo.jannocli.server.CommandServer} sessions are executed on.
+     * 
+     * @return the executor used for asynchronous commands.
+     */
+    public Executor getExecutor() {
+        Executor executor = this.executor;
+        return (executor != null) ? executor : DefaultExecutor.INSTANCE;
+    }
+
+    /**
+     * Sets the executor commands dispatched with {@link #parseAsync(String)}, input read with {@link #isAsyncInput() asynchronous input} and the
+     * commands of {@link com.github.maxstupo.jannocli.server.CommandServer} sessions are executed on. By default a virtual thread is used for each
+     * command if the JDK provides them, otherwise a shared pool of daemon threads.
+     * <p>
+     * A pipeline dispatched to the executor runs its last stage there, the stages before it run on threads of their own so a pipeline never
+     * waits for another executor thread. An executor with a fixed number of threads should still be sized for the number of commands expected to
+     * run at once, as queued commands wait for a running one to finish.
+     * 
+     * @param executor
+     *            the executor, or null to use the default.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public boolean isAsyncInput() {
+        return asyncInput;
+    }
+
+    /**
+     * Sets if lines read from the input stream are executed on the {@link #setExecutor(Executor) executor}, so a slow command doesn't stop the next
+     * line from being read.
+     * 
+     * @param asyncInput
+     *            true to execute commands read from the input stream asynchronously.
+     */
+    public void setAsyncInput(boolean asyncInput) {
+        this.asyncInput = asyncInput;
+    }
+
+    public IResponses getResponses() {
+        return responses;
+    }
+
+    public void setResponses(IResponses responses) {
+        this.responses = responses;
+    }
+
+    /** A command found for a line, or a stage of a pipeline, and its parameters. */
+    private static final class Stage {
+
+        AnnotationCommand command;
+        /** The container to display help for instead of the command, if the command is a root command. */
+        CommandContainer container;
+        Parameters params;
+
+        /** Executes the command, displaying help on <code>help</code> if the command requests it. */
+        CommandResult execute(IPrint out, IPrint help, IInput input, Metrics metrics) {
+            CommandResult result;
+            if (metrics.isEnabled()) {
+                long start = System.nanoTime();
+                result = command.execute(out, params, input);
+                command.metrics().recordExecute(System.nanoTime() - start, result);
+            } else {
+                result = command.execute(out, params, input);
+            }
+
+            if (result == CommandResult.HELP)
+                displayHelp(help);
+            return result;
+        }
+
+        void displayHelp(IPrint ps) {
+            if (container != null) {
+                container.displayHelp(ps);
+            } else {
+                command.displayHelp(ps);
+            }
+        }
+    }
+
+    /** The registered commands and their lookup index, never modified once created. */
+    private static final class Snapshot {
+
+        final Map<String, CommandContainer> commands;
+        final KeywordIndex<CommandContainer> lookup;
+        final KeywordTrie<CommandContainer> keywords;
+        /** The rendered help listing, created when first displayed. */
+        volatile HelpListing help;
+
+        Snapshot(Map<String, CommandContainer> commands, KeywordIndex<CommandContainer> lookup, KeywordTrie<CommandContainer> keywords) {
+            this.commands = Collections.unmodifiableMap(commands);
+            this.lookup = lookup;
+            this.keywords = keywords;
+        }
+    }
+
+    /**
+     * Returns a line of the help listing, equivalent to <code>String.format(" %-" + usageWidth + "s - %s", usage, description)</code>.
+     */
+    private static String helpLine(StringBuilder sb, String usage, int usageWidth, String description) {
+        sb.setLength(0);
+        sb.append(' ').append(usage);
+        for (int i = usage.length(); i < usageWidth; i++)
+            sb.append(' ');
+        return sb.append(" - ").append(description).toString();
+    }
+
+    /**
+     * The rendered help listing of every command. A new registry snapshot is taken whenever a command is registered, but sub-commands can be added
+     * to a container directly, so the listing also remembers the commands of each container it was rendered from.
+     */
+    private static final class HelpListing {
+
+        private final CommandContainer[] containers;
+        private final long[] versions;
+        final String[] lines;
+
+        HelpListing(Collection<CommandContainer> registered) {
+            this.containers = registered.toArray(new CommandContainer[0]);
+            this.versions = new long[containers.length];
+
+            List<String> usages = new ArrayList<>();
+            List<String> descriptions = new ArrayList<>();
+            for (int i = 0; i < containers.length; i++) {
+                CommandContainer container = containers[i];
+                versions[i] = container.version();
+
+                if (container instanceof LazyCommandContainer && !((LazyCommandContainer) container).isLoaded()) {
+                    // Only the keyword and aliases are known without loading the container, listing it shouldn't create its owner.
+                    StringBuilder usage = new StringBuilder(container.getKeyword());
+                    for (String alias : container.getAliases())
+                        usage.append('|').append(alias);
+                    usages.add(usage.toString());
+                    descriptions.add("");
+                    continue;
+                }
+
+                for (AnnotationCommand command : container.getCommands().values()) {
+                    if (command.isHidden())
+                        continue;
+                    usages.add(command.getUsage());
+                    descriptions.add(command.getDescription());
+                }
+            }
+
+            int usageWidth = 0;
+            int descWidth = 0;
+            for (int i = 0; i < usages.size(); i++) {
+                usageWidth = Math.max(usageWidth, usages.get(i).length());
+                descWidth = Math.max(descWidth, descriptions.get(i).length());
+            }
+            usageWidth += 2;
+
+            final int totalWidth = usageWidth + descWidth + 5;
+            final String helpText = " [ Help ] ";
+
+            this.lines = new String[usages.size() + 1];
+            lines[0] = Util.strRepeat("-", totalWidth / 2 - helpText.length() / 2) + helpText + Util.strRepeat("-", totalWidth / 2 - helpText.length() / 2);
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < usages.size(); i++)
+                lines[i + 1] = helpLine(sb, usages.get(i), usageWidth, descriptions.get(i));
+        }
+
+        /** Returns true if no container has been loaded or had sub-commands added since this listing was rendered. */
+        boolean isCurrent() {
+            for (int i = 0; i < containers.length; i++) {
+                if (containers[i].version() != versions[i])
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.maxstupo.jannocli;
+
+/**
+ * The outcome of dispatching a line of input.
+ *
+ * @author Maxstupo
+ * @see CommandLine#parse(String)
+ * @see CommandLine#parseAsync(String)
+ */
+public enum CommandResult {
+
+    /** The command was executed. */
+    EXECUTED,
+
+    /** Help was displayed, either because it was asked for, the parameters were invalid or the command requested it. */
+    HELP,
+
+    /** No command has the keyword or alias given, or the abbreviation given is ambiguous. */
+    UNKNOWN_COMMAND,
+
+    /** The line had no tokens. */
+    EMPTY,
+
+    /** The command threw an exception or set {@link ExecutedCommand#failed}. */
+    FAILED
+}
@@ -0,0 +1,80 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The completions of a partly typed line, returned by {@link CommandLine#complete(String, int)}. A completion replaces the text of the line from
+ * {@link #getStart()} up to the cursor.
+ *
+ * @author Maxstupo
+ */
+public class Completion {
+
+    private final int start;
+    private final String prefix;
+    private final List<String> candidates;
+
+    Completion(int start, String prefix, List<String> candidates) {
+        this.start = start;
+        this.prefix = prefix;
+        this.candidates = Collections.unmodifiableList(candidates);
+    }
+
+    /**
+     * Returns the offset within the line of the token being completed, or the cursor if a new token is being started.
+     *
+     * @return the offset the completions replace the line from.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the token being completed as typed so far, with quotes and escapes removed, or an empty string if a new token is being started.
+     *
+     * @return the token being completed.
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Returns the values the token can be completed to. Keywords and aliases come first in order, followed by parameter values.
+     *
+     * @return the completions, empty if there are none.
+     */
+    public List<String> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Returns the longest text every candidate starts with, which can be inserted when the candidates are ambiguous. Parameter values are completed
+     * ignoring case, so the result takes the case of the first candidate.
+     *
+     * @return the common prefix of the candidates, or the typed prefix if there are none.
+     */
+    public String getCommonPrefix() {
+        if (candidates.isEmpty())
+            return prefix;
+
+        String first = candidates.get(0);
+        int length = first.length();
+        for (int i = 1; i < candidates.size(); i++) {
+            String candidate = candidates.get(i);
+            length = Math.min(length, candidate.length());
+            for (int j = 0; j < length; j++) {
+                if (Character.toLowerCase(first.charAt(j)) != Character.toLowerCase(candidate.charAt(j))) {
+                    length = j;
+                    break;
+                }
+            }
+        }
+        return first.substring(0, length);
+    }
+
+    @Override
+    public String toString() {
+        return "Completion [start=" + start + ", prefix=" + prefix + ", candidates=" + candidates + "]";
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.maxstupo.jannocli;
+
+import com.github.maxstupo.jannocli.annotation.Command;
+
+/**
+ * The built-in <code>count</code> pipeline stage, which prints the number of lines of its input.
+ *
+ * @author Maxstupo
+ */
+@Command("count")
+class CountCommand {
+
+    @Command(name = "Count", description = "Prints the number of piped lines")
+    private void count(ExecutedCommand cmd) {
+        long count = 0;
+        while (cmd.input.readLine() != null)
+            count++;
+        cmd.cli.println(Long.toString(count));
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the executor used by {@link CommandLine#parseAsync(String)} when none is set. A virtual thread per command is used if the JDK provides them,
+ * otherwise a cached pool of daemon threads. The executor is only created when first used and is shared by all command-lines.
+ *
+ * @author Maxstupo
+ */
+final class DefaultExecutor {
+
+    static final Executor INSTANCE = create();
+
+    private DefaultExecutor() {
+
+    }
+
+    private static Executor create() {
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor() is only available from Java 21.
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(new ThreadFactory() {
+
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "JAnnoCli-worker-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+}
@@ -1,37 +1,67 @@
-package com.github.maxstupo.jannocli;
-
-import com.github.maxstupo.jannocli.cli.IPrint;
-
-/**
- * This class is a wrapper given to the command logic (method) of an executed command.
- * 
- * @author Maxstupo
- */
-public class ExecutedCommand {
-
-    /** The implementation for the console. Useful for command logic to share a common output. */
-    public final IPrint cli;
-
-    /** The parsed parameters of the executed command. */
-    public final Parameters parameters;
-
-    /**
-     * If set true during execution of command logic, the help of this command will be displayed through the {@link #cli} object.
-     * <p>
-     * Usually set true if parameters are the incorrect type or are out-of-range.
-     */
-    public boolean displayHelp;
-
-    /**
-     * Create a new {@link ExecutedCommand} object.
-     * 
-     * @param cli
-     *            the output implementation.
-     * @param parameters
-     *            the parsed parameters.
-     */
-    public ExecutedCommand(IPrint cli, Parameters parameters) {
-        this.cli = cli;
-        this.parameters = parameters;
-    }
-}
+package com.github.maxstupo.jannocli;
+
+import com.github.maxstupo.jannocli.cli.IInput;
+import com.github.maxstupo.jannocli.cli.IPrint;
+
+/**
+ * This class is a wrapper given to the command logic (method) of an executed command.
+ * 
+ * @author Maxstupo
+ */
+public class ExecutedCommand {
+
+    /** The implementation for the console. Useful for command logic to share a common output. */
+    public final IPrint cli;
+
+    /** The parsed parameters of the executed command. */
+    public final Parameters parameters;
+
+    /**
+     * The lines printed by the previous command of a pipeline (<code>a | b</code>), read while that command is still running. Empty if the command
+     * isn't part of a pipeline or is its first command.
+     */
+    public final IInput input;
+
+    /**
+     * If set true during execution of command logic, the help of this command will be displayed through the {@link #cli} object.
+     * <p>
+     * Usually set true if parameters are the incorrect type or are out-of-range. Each execution has its own {@link ExecutedCommand}, so this field
+     * is never shared between threads.
+     */
+    public boolean displayHelp;
+
+    /**
+     * If set true during execution of command logic, the command is reported as {@link CommandResult#FAILED}, the same as if it had thrown an
+     * exception but without the stack trace being printed. The command is expected to have printed why it failed. Takes precedence over
+     * {@link #displayHelp}.
+     */
+    public boolean failed;
+
+    /**
+     * Create a new {@link ExecutedCommand} object.
+     * 
+     * @param cli
+     *            the output implementation.
+     * @param parameters
+     *            the parsed parameters.
+     */
+    public ExecutedCommand(IPrint cli, Parameters parameters) {
+        this(cli, parameters, IInput.EMPTY);
+    }
+
+    /**
+     * Create a new {@link ExecutedCommand} object.
+     * 
+     * @param cli
+     *            the output implementation.
+     * @param parameters
+     *            the parsed parameters.
+     * @param input
+     *            the input of the command.
+     */
+    public ExecutedCommand(IPrint cli, Parameters parameters, IInput input) {
+        this.cli = cli;
+        this.parameters = parameters;
+        this.input = input;
+    }
+}
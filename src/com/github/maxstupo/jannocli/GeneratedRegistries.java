@@ -0,0 +1,48 @@
+package com.github.maxstupo.jannocli;
+
+/**
+ * This class finds and caches the {@link ICommandRegistry} generated for a type, if there is one.
+ * 
+ * @author Maxstupo
+ */
+final class GeneratedRegistries {
+
+    private static final ClassValue<ICommandRegistry> registries = new ClassValue<ICommandRegistry>() {
+
+        @Override
+        protected ICommandRegistry computeValue(Class<?> type) {
+            return load(type);
+        }
+    };
+
+    private GeneratedRegistries() {
+
+    }
+
+    /**
+     * Returns the generated registry for the given type, or null if the type wasn't processed by the command annotation processor.
+     */
+    static ICommandRegistry get(Class<?> type) {
+        return registries.get(type);
+    }
+
+    private static ICommandRegistry load(Class<?> type) {
+        if (type.isAnonymousClass() || type.isLocalClass() || type.isArray())
+            return null;
+
+        String name = type.getName();
+        int packageEnd = name.lastIndexOf('.');
+        String generatedName = name.substring(0, packageEnd + 1) + ICommandRegistry.PREFIX + name.substring(packageEnd + 1).replace('$', '_');
+
+        try {
+            Class<?> generated = Class.forName(generatedName, true, type.getClassLoader());
+            if (!ICommandRegistry.class.isAssignableFrom(generated))
+                return null;
+
+            ICommandRegistry registry = (ICommandRegistry) generated.getConstructor().newInstance();
+            return registry.getOwnerType() == type ? registry : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
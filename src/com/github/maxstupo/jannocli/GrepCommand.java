@@ -0,0 +1,58 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.github.maxstupo.jannocli.annotation.Command;
+import com.github.maxstupo.jannocli.annotation.ParamAliases;
+import com.github.maxstupo.jannocli.annotation.ParamDescription;
+
+/**
+ * The built-in <code>grep</code> pipeline stage, which prints the lines of its input that match a regular expression.
+ *
+ * @author Maxstupo
+ */
+@Command("grep")
+class GrepCommand {
+
+    @Command(name = "Grep", description = "Prints the piped lines matching a pattern, -v for lines not matching and -i to ignore case")
+    @ParamAliases({ "pattern" })
+    @ParamDescription({ "a regular expression, found anywhere in a line" })
+    private void grep(ExecutedCommand cmd) {
+        boolean invert = false;
+        int flags = 0;
+        String regex = null;
+
+        for (int i = 0; i < cmd.parameters.getCount(); i++) {
+            String param = cmd.parameters.get(i);
+            if (regex == null && param.equals("-v")) {
+                invert = true;
+            } else if (regex == null && param.equals("-i")) {
+                flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+            } else if (regex == null) {
+                regex = param;
+            } else {
+                cmd.displayHelp = true;
+                return;
+            }
+        }
+
+        if (regex == null) {
+            cmd.displayHelp = true;
+            return;
+        }
+
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(regex, flags);
+        } catch (PatternSyntaxException e) {
+            cmd.displayHelp = true;
+            return;
+        }
+
+        for (String line; (line = cmd.input.readLine()) != null;) {
+            if (pattern.matcher(line).find() != invert)
+                cmd.cli.println(line);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.maxstupo.jannocli;
+
+import com.github.maxstupo.jannocli.annotation.Command;
+import com.github.maxstupo.jannocli.annotation.ParamAliases;
+import com.github.maxstupo.jannocli.annotation.ParamDescription;
+
+/**
+ * The built-in <code>head</code> pipeline stage, which prints the first lines of its input. The rest of the input is discarded, so the previous
+ * command doesn't wait for it to be read.
+ *
+ * @author Maxstupo
+ */
+@Command("head")
+class HeadCommand {
+
+    @Command(name = "Head", description = "Prints the first piped lines")
+    @ParamAliases({ "lines" })
+    @ParamDescription({ "the number of lines to print, 10 by default" })
+    private void head(ExecutedCommand cmd) {
+        long lines = 10;
+        if (cmd.parameters.has(0)) {
+            try {
+                lines = Long.parseLong(cmd.parameters.get(0));
+            } catch (NumberFormatException e) {
+                cmd.displayHelp = true;
+                return;
+            }
+        }
+
+        String line;
+        for (long i = 0; i < lines && (line = cmd.input.readLine()) != null; i++)
+            cmd.cli.println(line);
+    }
+}
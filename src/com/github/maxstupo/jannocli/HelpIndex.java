@@ -0,0 +1,339 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * An inverted index over the help text of registered commands, used by <code>help &lt;term...&gt;</code>. The words of the keyword, aliases, name,
+ * description and parameter descriptions of each command are mapped to the commands containing them, so a search only visits the commands that
+ * match instead of every registered command.
+ * <p>
+ * Containers are indexed when they are registered. Sub-commands can be added to a container directly and lazy containers only know their keyword
+ * and aliases until they are loaded, so each search first re-indexes any container whose {@link CommandContainer#version() version} has changed
+ * since it was indexed.
+ * <p>
+ * Each search term matches words equal to it or starting with it, a whole word scoring higher than a prefix. Commands are ranked by the number of
+ * terms they match, then by the sum of the weights of the fields each term was found in, scaled by how rare the term is, then by the order they were
+ * registered in.
+ *
+ * @author Maxstupo
+ */
+final class HelpIndex {
+
+    /** Weights of the fields a word can be found in. */
+    private static final int KEYWORD = 8;
+    private static final int NAME = 4;
+    private static final int CONTAINER = 3;
+    private static final int DESCRIPTION = 2;
+    private static final int PARAMETER = 1;
+
+    /** Words mapped to the entries containing them. */
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    private final Map<CommandContainer, Indexed> containers = new IdentityHashMap<>();
+    private int entryCount;
+
+    private int searches;
+    private long nextId;
+
+    /**
+     * Indexes the commands of the given container.
+     */
+    synchronized void add(CommandContainer container) {
+        Indexed indexed = new Indexed(container.version());
+        containers.put(container, indexed);
+
+        if (container instanceof LazyCommandContainer && !((LazyCommandContainer) container).isLoaded()) {
+            // Only the keyword and aliases are known without loading the container.
+            Entry entry = new Entry(nextId++, container.getKeyword(), "");
+            index(entry, container.getKeyword(), KEYWORD);
+            for (String alias : container.getAliases())
+                index(entry, alias, KEYWORD);
+            add(indexed, entry);
+            return;
+        }
+
+        Map<String, AnnotationCommand> commands = container.getCommands();
+        for (AnnotationCommand command : commands.values()) {
+            if (command.isHidden())
+                continue;
+
+            Entry entry = new Entry(nextId++, command.getUsage(), command.getDescription());
+            boolean root = command == commands.get(null);
+
+            index(entry, root ? container.getKeyword() : command.getKeyword(), KEYWORD);
+            for (String alias : root ? container.getAliases() : command.getAliases())
+                index(entry, alias, KEYWORD);
+            if (!root)
+                index(entry, container.getKeyword(), CONTAINER);
+            index(entry, command.getName(), NAME);
+            index(entry, command.getDescription(), DESCRIPTION);
+            if (command.getParamDescriptions() != null) {
+                for (String description : command.getParamDescriptions())
+                    index(entry, description, PARAMETER);
+            }
+            add(indexed, entry);
+        }
+    }
+
+    /**
+     * Removes the commands of the given container from this index.
+     */
+    synchronized void remove(CommandContainer container) {
+        Indexed indexed = containers.remove(container);
+        if (indexed == null)
+            return;
+
+        for (Entry entry : indexed.entries) {
+            for (String word : entry.words) {
+                Postings postings = words.get(word);
+                postings.remove(entry);
+                if (postings.size == 0)
+                    words.remove(word);
+            }
+        }
+        entryCount -= indexed.entries.size();
+    }
+
+    /**
+     * Returns the best entries matching any of the given terms, best match first.
+     * 
+     * @param terms
+     *            the terms to search for.
+     * @param limit
+     *            the maximum number of entries to return.
+     * @return the results of the search.
+     */
+    synchronized Results search(String[] terms, int limit) {
+        refresh();
+
+        // Scores are kept on the entries themselves, marked with the search they belong to, so a search doesn't need a map of every match.
+        int search = ++searches;
+        List<Entry> found = new ArrayList<>();
+        List<Entry> termFound = new ArrayList<>();
+
+        for (String term : terms) {
+            for (String part : words(term)) {
+                int termSearch = ++searches;
+                termFound.clear();
+
+                for (Map.Entry<String, Postings> word : words.subMap(part, true, part + Character.MAX_VALUE, false).entrySet()) {
+                    boolean whole = word.getKey().length() == part.length();
+                    Postings postings = word.getValue();
+
+                    for (int i = 0; i < postings.size; i++) {
+                        Entry entry = postings.entries[i];
+                        int weight = whole ? postings.weights[i] * 2 : postings.weights[i];
+
+                        // The best match of this term within each entry.
+                        if (entry.termSearch != termSearch) {
+                            entry.termSearch = termSearch;
+                            entry.termWeight = weight;
+                            termFound.add(entry);
+                        } else if (entry.termWeight < weight) {
+                            entry.termWeight = weight;
+                        }
+                    }
+                }
+
+                double rarity = Math.log(1 + (double) entryCount / Math.max(1, termFound.size()));
+                for (Entry entry : termFound) {
+                    if (entry.search != search) {
+                        entry.search = search;
+                        entry.terms = 0;
+                        entry.score = 0;
+                        found.add(entry);
+                    }
+                    entry.terms++;
+                    entry.score += entry.termWeight * rarity;
+                }
+            }
+        }
+
+        // Only the best entries are sorted, keeping the worst of them at the head of the queue.
+        PriorityQueue<Entry> best = new PriorityQueue<>(Math.max(1, Math.min(limit, found.size())), Collections.reverseOrder(RANKING));
+        for (Entry entry : found) {
+            if (best.size() < limit) {
+                best.add(entry);
+            } else if (limit > 0 && RANKING.compare(entry, best.peek()) < 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+
+        Entry[] entries = new Entry[best.size()];
+        for (int i = entries.length - 1; i >= 0; i--)
+            entries[i] = best.poll();
+        return new Results(Arrays.asList(entries), found.size());
+    }
+
+    /** Re-indexes the containers whose commands have changed since they were indexed. */
+    private void refresh() {
+        List<CommandContainer> changed = null;
+        for (Map.Entry<CommandContainer, Indexed> entry : containers.entrySet()) {
+            CommandContainer container = entry.getKey();
+            if (container.version() != entry.getValue().version) {
+                if (changed == null)
+                    changed = new ArrayList<>();
+                changed.add(container);
+            }
+        }
+
+        if (changed != null) {
+            for (CommandContainer container : changed) {
+                remove(container);
+                add(container);
+            }
+        }
+    }
+
+    private void add(Indexed indexed, Entry entry) {
+        indexed.entries.add(entry);
+        entryCount++;
+    }
+
+    private void index(Entry entry, String text, int weight) {
+        for (String word : words(text)) {
+            Postings postings = words.get(word);
+            if (postings == null)
+                words.put(word, postings = new Postings());
+
+            // The fields of an entry are indexed one after another, so if the word is already in the entry it was the last one added.
+            int last = postings.size - 1;
+            if (last >= 0 && postings.entries[last] == entry) {
+                postings.weights[last] = Math.max(postings.weights[last], weight);
+            } else {
+                entry.words.add(word);
+                postings.add(entry, weight);
+            }
+        }
+    }
+
+    /**
+     * Splits the given text into lower case words of letters and digits.
+     */
+    static String[] words(String text) {
+        List<String> words = null;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean part = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (part && start == -1) {
+                start = i;
+            } else if (!part && start != -1) {
+                if (words == null)
+                    words = new ArrayList<>();
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return (words == null) ? new String[0] : words.toArray(new String[words.size()]);
+    }
+
+    /** Orders entries from the best match to the worst. */
+    private static final Comparator<Entry> RANKING = new Comparator<Entry>() {
+
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            if (o1.terms != o2.terms)
+                return Integer.compare(o2.terms, o1.terms);
+            if (o1.score != o2.score)
+                return Double.compare(o2.score, o1.score);
+            return Long.compare(o1.id, o2.id);
+        }
+    };
+
+    /** The results of a search. */
+    static final class Results {
+
+        /** The best entries found, best first. */
+        final List<Entry> entries;
+        /** The number of entries found, including those not returned. */
+        final int total;
+
+        Results(List<Entry> entries, int total) {
+            this.entries = entries;
+            this.total = total;
+        }
+    }
+
+    /** A command found by a search. */
+    static final class Entry {
+
+        final String usage;
+        final String description;
+        /** Orders entries that match equally by when they were indexed. */
+        private final long id;
+        /** The words this entry is indexed under, used to remove it. */
+        private final List<String> words = new ArrayList<>();
+
+        /** The score of this entry within the last search, valid if <code>search</code> is the number of that search. */
+        private int search;
+        private int terms;
+        private double score;
+
+        /** The weight of the best match of a term within this entry, valid if <code>termSearch</code> is the number of that term. */
+        private int termSearch;
+        private int termWeight;
+
+        Entry(long id, String usage, String description) {
+            this.id = id;
+            this.usage = usage;
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return usage;
+        }
+    }
+
+    /** The entries containing a word, with the weight of the best field each contains the word in. */
+    private static final class Postings {
+
+        Entry[] entries = new Entry[2];
+        int[] weights = new int[2];
+        int size;
+
+        void add(Entry entry, int weight) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            entries[size] = entry;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(Entry entry) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (entries[i] == entry) {
+                    // Entries aren't ordered, so the last one takes its place.
+                    size--;
+                    entries[i] = entries[size];
+                    weights[i] = weights[size];
+                    entries[size] = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    /** The entries of an indexed container. */
+    private static final class Indexed {
+
+        final List<Entry> entries = new ArrayList<>();
+        /** The version of the container when it was indexed. */
+        final long version;
+
+        Indexed(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.maxstupo.jannocli;
+
+/**
+ * This interface is implemented by the classes generated by the command annotation processor. A generated class creates the
+ * {@link CommandContainer} for one {@link com.github.maxstupo.jannocli.annotation.Command Command} annotated type without using reflection.
+ * <p>
+ * The generated class for <code>com.example.Outer.Inner</code> is <code>com.example.JAnnoCli_Outer_Inner</code>.
+ * {@link CommandLine#register(Object)} uses it automatically when it is present, or it can be given directly with
+ * {@link CommandLine#register(ICommandRegistry, Object)}.
+ * 
+ * @author Maxstupo
+ */
+public interface ICommandRegistry {
+
+    /** The prefix of the simple name of generated classes. */
+    String PREFIX = "JAnnoCli_";
+
+    /**
+     * Returns the type that owns the commands created by this registry.
+     * 
+     * @return the type that owns the commands.
+     */
+    Class<?> getOwnerType();
+
+    /**
+     * Returns the keyword of the root command, read without creating the owner.
+     * 
+     * @return the keyword of the root command.
+     */
+    String getKeyword();
+
+    /**
+     * Returns the aliases of the root command, read without creating the owner.
+     * 
+     * @return the aliases of the root command.
+     */
+    String[] getAliases();
+
+    /**
+     * Creates the container and all commands for the given owner.
+     * 
+     * @param owner
+     *            the owner of the commands, an instance of {@link #getOwnerType()}.
+     * @return a new container holding all commands of the owner.
+     */
+    CommandContainer createContainer(Object owner);
+
+}
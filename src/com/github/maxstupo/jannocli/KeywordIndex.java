@@ -0,0 +1,135 @@
+package com.github.maxstupo.jannocli;
+
+/**
+ * An open addressing hash table mapping keywords and aliases to a value. Lookups accept any {@link CharSequence}, so a keyword can be resolved in a
+ * single probe sequence without creating a {@link String} first.
+ * <p>
+ * This class isn't thread safe. An index shared between threads must not be modified once published, use {@link #copy()} to modify a copy instead.
+ *
+ * @author Maxstupo
+ */
+final class KeywordIndex<T> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final boolean ignoreCase;
+
+    private String[] keys;
+    private Object[] values;
+    private int size;
+
+    KeywordIndex() {
+        this(false);
+    }
+
+    /**
+     * @param ignoreCase
+     *            true if keys should be matched ignoring case.
+     */
+    KeywordIndex(boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.keys = new String[DEFAULT_CAPACITY];
+        this.values = new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Returns the value mapped to the given key, or null.
+     */
+    T get(CharSequence key) {
+        return get(key, 0, key.length());
+    }
+
+    /**
+     * Returns the value mapped to the characters between <code>start</code> (inclusive) and <code>end</code> (exclusive) of the given sequence, or
+     * null.
+     */
+    @SuppressWarnings("unchecked")
+    T get(CharSequence seq, int start, int end) {
+        int mask = keys.length - 1;
+        int i = hash(seq, start, end) & mask;
+
+        String key;
+        while ((key = keys[i]) != null) {
+            if (matches(key, seq, start, end))
+                return (T) values[i];
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a copy of this index, modifying the copy doesn't affect this index.
+     */
+    KeywordIndex<T> copy() {
+        KeywordIndex<T> copy = new KeywordIndex<>(ignoreCase);
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Maps the given key to the given value if the key isn't already mapped.
+     *
+     * @return the value already mapped to the key, or null if the given value was added.
+     */
+    T putIfAbsent(String key, T value) {
+        T existing = get(key);
+        if (existing != null)
+            return existing;
+
+        if ((size + 1) * 2 > keys.length)
+            resize(keys.length * 2);
+
+        insert(key, value);
+        size++;
+        return null;
+    }
+
+    private void insert(String key, Object value) {
+        int mask = keys.length - 1;
+        int i = hash(key, 0, key.length()) & mask;
+        while (keys[i] != null)
+            i = (i + 1) & mask;
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new String[capacity];
+        values = new Object[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null)
+                insert(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private boolean matches(String key, CharSequence seq, int start, int end) {
+        if (key.length() != end - start)
+            return false;
+        for (int i = 0; i < key.length(); i++) {
+            char c1 = key.charAt(i);
+            char c2 = seq.charAt(start + i);
+            if (c1 != c2 && (!ignoreCase || fold(c1) != fold(c2)))
+                return false;
+        }
+        return true;
+    }
+
+    /** Same as {@link String#hashCode()} (of the case folded key if ignoring case), spread so that linear probing doesn't cluster. */
+    private int hash(CharSequence seq, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++)
+            h = 31 * h + (ignoreCase ? fold(seq.charAt(i)) : seq.charAt(i));
+        return h ^ (h >>> 16);
+    }
+
+    /** Folds case the same way as {@link String#equalsIgnoreCase(String)}. */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -0,0 +1,340 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable prefix tree of keywords and aliases and the commands they belong to, used to resolve abbreviated keywords, to complete partly typed
+ * keywords and to suggest keywords close to one that wasn't found.
+ * <p>
+ * Each node records the command shared by every key below it, if there is only one, so an abbreviation is resolved by walking down to the node of
+ * the abbreviation and nothing more.
+ * <p>
+ * Completing a prefix walks down to the node of the prefix and lists the keys below it in order, so it costs time proportional to the length of
+ * the prefix and the keys returned, however many keys the tree holds.
+ * <p>
+ * A suggestion search walks the tree computing one row of the edit distance table per character, so keywords sharing a prefix share the work of
+ * that prefix, and a branch is abandoned as soon as every entry of its row is over the maximum distance. Only the branches within reach of the
+ * word are visited, instead of measuring the distance to every keyword. The distance is the optimal string alignment distance ignoring case: the
+ * number of characters inserted, deleted, replaced or swapped with the next character.
+ * <p>
+ * Adding a keyword copies only the nodes on its path and shares the rest, so a registry snapshot can hold a tree that is updated as commands are
+ * registered without a lock or a rebuild. The tree doesn't support removal, so it is rebuilt whenever a command is removed.
+ *
+ * @author Maxstupo
+ */
+final class KeywordTrie<V> {
+
+    private static final KeywordTrie<?> EMPTY = new KeywordTrie<>(new Node(null, null, null, new char[0], new Node[0]));
+
+    /** The maximum number of suggestions returned by {@link #suggest(CharSequence)}. */
+    private static final int SUGGESTIONS = 3;
+
+    private final Node root;
+
+    private KeywordTrie(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns an empty tree.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> KeywordTrie<V> empty() {
+        return (KeywordTrie<V>) EMPTY;
+    }
+
+    /**
+     * Returns a tree containing the keys of this tree and the given key, or this tree if the key is empty or already in it.
+     */
+    KeywordTrie<V> add(String key, V value) {
+        if (key.isEmpty())
+            return this;
+        Node node = add(root, key, value, 0);
+        return (node == root) ? this : new KeywordTrie<V>(node);
+    }
+
+    private static Node add(Node node, String key, Object value, int index) {
+        if (index == key.length())
+            return (node.key != null) ? node : new Node(key, value, shared(node, value), node.chars, node.children);
+
+        char c = key.charAt(index);
+        int i = Arrays.binarySearch(node.chars, c);
+        if (i >= 0) {
+            Node child = add(node.children[i], key, value, index + 1);
+            if (child == node.children[i])
+                return node;
+            Node[] children = node.children.clone();
+            children[i] = child;
+            return new Node(node.key, node.value, shared(node, value), node.chars, children);
+        }
+
+        // Insert a new branch, keeping the children ordered by character.
+        i = -i - 1;
+        Node child = add(EMPTY.root, key, value, index + 1);
+
+        char[] chars = new char[node.chars.length + 1];
+        System.arraycopy(node.chars, 0, chars, 0, i);
+        System.arraycopy(node.chars, i, chars, i + 1, node.chars.length - i);
+        chars[i] = c;
+
+        Node[] children = new Node[node.children.length + 1];
+        System.arraycopy(node.children, 0, children, 0, i);
+        System.arraycopy(node.children, i, children, i + 1, node.children.length - i);
+        children[i] = child;
+
+        return new Node(node.key, node.value, shared(node, value), chars, children);
+    }
+
+    /**
+     * Returns the value shared by every key below the given node once a key with the given value is added below it, or null if they differ.
+     */
+    private static Object shared(Node node, Object value) {
+        boolean empty = node.key == null && node.children.length == 0;
+        return (empty || node.only == value) ? value : null;
+    }
+
+    /**
+     * Returns the value of the given key, or if it isn't a key, the value shared by every key starting with it. Keys are matched exactly, as they
+     * are looked up.
+     *
+     * @param prefix
+     *            a key or the start of keys.
+     * @return the value the prefix stands for, or null if no key starts with it or the keys starting with it have different values.
+     */
+    @SuppressWarnings("unchecked")
+    V abbreviation(CharSequence prefix) {
+        Node node = (prefix.length() > 0) ? find(prefix) : null;
+        if (node == null)
+            return null;
+        return (V) ((node.key != null) ? node.value : node.only);
+    }
+
+    /**
+     * Returns the different values of the keys starting with the given prefix, in the order of the first key of each.
+     *
+     * @param prefix
+     *            the start of the keys.
+     * @param limit
+     *            the maximum number of values to return.
+     * @return the values of the keys starting with the prefix.
+     */
+    List<V> candidates(CharSequence prefix, int limit) {
+        Node node = (prefix.length() > 0) ? find(prefix) : null;
+        if (node == null || limit <= 0)
+            return Collections.emptyList();
+        List<V> values = new ArrayList<>();
+        candidates(node, limit, values);
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void candidates(Node node, int limit, List<V> values) {
+        if (node.only != null) {
+            // Every key below has the same value, no need to look at them.
+            if (!containsIdentical(values, node.only))
+                values.add((V) node.only);
+            return;
+        }
+        if (node.key != null && !containsIdentical(values, node.value))
+            values.add((V) node.value);
+        for (int i = 0; i < node.children.length && values.size() < limit; i++)
+            candidates(node.children[i], limit, values);
+    }
+
+    private static boolean containsIdentical(List<?> values, Object value) {
+        for (Object v : values) {
+            if (v == value)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the node of the given prefix, or null if no key starts with it.
+     */
+    private Node find(CharSequence prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            int index = Arrays.binarySearch(node.chars, prefix.charAt(i));
+            if (index < 0)
+                return null;
+            node = node.children[index];
+        }
+        return node;
+    }
+
+    /**
+     * Adds the keys starting with the given prefix to the given list, in order, until the list holds the given number of elements. Keys are
+     * matched exactly, as they are looked up.
+     *
+     * @param prefix
+     *            the prefix of the keys to add.
+     * @param limit
+     *            the size the list is filled up to.
+     * @param keys
+     *            the list to add the keys to.
+     */
+    void complete(CharSequence prefix, int limit, List<String> keys) {
+        Node node = find(prefix);
+        if (node != null)
+            collect(node, limit, keys);
+    }
+
+    private static void collect(Node node, int limit, List<String> keys) {
+        if (keys.size() >= limit)
+            return;
+        if (node.key != null)
+            keys.add(node.key);
+        for (int i = 0; i < node.children.length && keys.size() < limit; i++)
+            collect(node.children[i], limit, keys);
+    }
+
+    /**
+     * Returns up to three keys close enough to the given word to be what was meant, nearest first. Words of up to three characters allow one
+     * difference and must start with the same character as the key, longer words allow two. Keys of one character, such as <code>?</code>, are
+     * within one difference of any short word and are never suggested.
+     */
+    List<String> suggest(CharSequence word) {
+        boolean shortWord = word.length() <= 3;
+        return search(word, shortWord ? 1 : 2, shortWord, SUGGESTIONS);
+    }
+
+    /**
+     * Returns the keys of more than one character within the given distance of the given word, nearest first.
+     *
+     * @param word
+     *            the word to find keys close to.
+     * @param maxDistance
+     *            the maximum distance of a returned key.
+     * @param sameFirst
+     *            true to only return keys starting with the same character as the word, ignoring case.
+     * @param limit
+     *            the maximum number of keys to return.
+     * @return the closest keys, ordered by distance and then alphabetically.
+     */
+    List<String> search(CharSequence word, int maxDistance, boolean sameFirst, int limit) {
+        if (root.children.length == 0 || limit <= 0 || (sameFirst && word.length() == 0))
+            return Collections.emptyList();
+
+        Search search = new Search(word, maxDistance);
+        int[] first = search.row(0);
+        for (int j = 0; j < first.length; j++)
+            first[j] = j;
+
+        for (int i = 0; i < root.children.length; i++) {
+            if (!sameFirst || Character.toLowerCase(root.chars[i]) == search.word[0])
+                search.walk(root.children[i], root.chars[i], (char) 0, 1);
+        }
+
+        List<Match> matches = search.matches;
+        Collections.sort(matches, Match.ORDER);
+        List<String> keys = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++)
+            keys.add(matches.get(i).key);
+        return keys;
+    }
+
+    /** The state of a suggestion search, with one row of the distance table for each depth of the tree. */
+    private static final class Search {
+
+        private final char[] word;
+        private final int maxDistance;
+        private final List<Match> matches = new ArrayList<>();
+        private int[][] rows = new int[8][];
+
+        Search(CharSequence word, int maxDistance) {
+            this.word = new char[word.length()];
+            for (int i = 0; i < this.word.length; i++)
+                this.word[i] = Character.toLowerCase(word.charAt(i));
+            this.maxDistance = maxDistance;
+        }
+
+        int[] row(int depth) {
+            if (depth == rows.length)
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            if (rows[depth] == null)
+                rows[depth] = new int[word.length + 1];
+            return rows[depth];
+        }
+
+        /**
+         * Computes the row for the given node, reached through the given character, and walks its children if any entry of the row is within the
+         * maximum distance.
+         */
+        void walk(Node node, char c, char last, int depth) {
+            int[] previous = rows[depth - 1];
+            int[] previous2 = (depth > 1) ? rows[depth - 2] : null;
+            int[] current = row(depth);
+
+            c = Character.toLowerCase(c);
+            current[0] = depth;
+            int rowMin = depth;
+
+            for (int j = 1; j <= word.length; j++) {
+                char w = word[j - 1];
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + ((c == w) ? 0 : 1));
+                if (previous2 != null && j > 1 && c == word[j - 2] && last == w)
+                    value = Math.min(value, previous2[j - 2] + 1);
+
+                current[j] = value;
+                if (value < rowMin)
+                    rowMin = value;
+            }
+
+            if (node.key != null && depth > 1 && current[word.length] <= maxDistance)
+                matches.add(new Match(node.key, current[word.length]));
+
+            // The smallest entry of a row is never less than that of the row above, so once a row is over the maximum distance every row below is too.
+            if (rowMin > maxDistance)
+                return;
+
+            for (int i = 0; i < node.children.length; i++)
+                walk(node.children[i], node.chars[i], c, depth + 1);
+        }
+    }
+
+    private static final class Node {
+
+        /** The key ending at this node, or null. */
+        final String key;
+        final Object value;
+        /** The value of every key at or below this node, or null if they don't all have the same value. */
+        final Object only;
+        /** The characters leading to each child, in order. */
+        final char[] chars;
+        final Node[] children;
+
+        Node(String key, Object value, Object only, char[] chars, Node[] children) {
+            this.key = key;
+            this.value = value;
+            this.only = only;
+            this.chars = chars;
+            this.children = children;
+        }
+    }
+
+    private static final class Match {
+
+        static final Comparator<Match> ORDER = new Comparator<Match>() {
+
+            @Override
+            public int compare(Match o1, Match o2) {
+                if (o1.distance != o2.distance)
+                    return Integer.compare(o1.distance, o2.distance);
+                return o1.key.compareTo(o2.key);
+            }
+        };
+
+        final String key;
+        final int distance;
+
+        Match(String key, int distance) {
+            this.key = key;
+            this.distance = distance;
+        }
+    }
+}
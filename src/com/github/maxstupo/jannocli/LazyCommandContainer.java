@@ -0,0 +1,140 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.List;
+import java.util.Map;
+
+import com.github.maxstupo.jannocli.cli.IPrint;
+
+/**
+ * A {@link CommandContainer} that only knows its keyword and aliases until it is first used. The owner is created and its commands are introspected
+ * the first time anything other than the keyword or aliases is requested.
+ *
+ * @author Maxstupo
+ * @see CommandLine#register(Class, java.util.function.Supplier)
+ */
+final class LazyCommandContainer extends CommandContainer {
+
+    /** Creates the real container, called at most once successfully. */
+    interface Loader {
+        CommandContainer load();
+    }
+
+    private Loader loader;
+    private volatile CommandContainer container;
+
+    LazyCommandContainer(String keyword, String[] aliases, Loader loader) {
+        super(null, keyword, aliases);
+        this.loader = loader;
+    }
+
+    /**
+     * Returns true if the owner has been created and its commands introspected.
+     */
+    boolean isLoaded() {
+        return container != null;
+    }
+
+    private CommandContainer load() {
+        CommandContainer c = container;
+        if (c != null)
+            return c;
+
+        synchronized (this) {
+            if (container == null) {
+                container = loader.load();
+                loader = null;
+            }
+            return container;
+        }
+    }
+
+    /**
+     * Returns 0 until the container is loaded, then one more than the version of the loaded container, so loading counts as a change.
+     */
+    @Override
+    long version() {
+        CommandContainer c = container;
+        return (c == null) ? 0 : c.version() + 1;
+    }
+
+    @Override
+    public void displayHelp(IPrint ps) {
+        load().displayHelp(ps);
+    }
+
+    @Override
+    public boolean invoke(IPrint ps, String[] parameters) {
+        return load().invoke(ps, parameters);
+    }
+
+    @Override
+    AnnotationCommand getCommand(Tokenizer tokens, int index) {
+        return load().getCommand(tokens, index);
+    }
+
+    @Override
+    public AnnotationCommand getCommand(String keyword) {
+        return load().getCommand(keyword);
+    }
+
+    @Override
+    public AnnotationCommand findCommand(String keyword) {
+        return load().findCommand(keyword);
+    }
+
+    @Override
+    AnnotationCommand findCommand(Tokenizer tokens, int index) {
+        return load().findCommand(tokens, index);
+    }
+
+    @Override
+    public List<String> getCandidates(String abbreviation, int limit) {
+        return load().getCandidates(abbreviation, limit);
+    }
+
+    @Override
+    public List<String> getSuggestions(String keyword) {
+        return load().getSuggestions(keyword);
+    }
+
+    @Override
+    void completeCommand(CharSequence prefix, int limit, List<String> keywords) {
+        load().completeCommand(prefix, limit, keywords);
+    }
+
+    @Override
+    public String findConflict(String keyword, String[] aliases) {
+        return load().findConflict(keyword, aliases);
+    }
+
+    @Override
+    public void setRootCommand(AnnotationCommand command) {
+        load().setRootCommand(command);
+    }
+
+    @Override
+    public boolean addCommand(AnnotationCommand command) {
+        return load().addCommand(command);
+    }
+
+    @Override
+    public AnnotationCommand getRootCommand() {
+        return load().getRootCommand();
+    }
+
+    @Override
+    public boolean hasRootCommand() {
+        return load().hasRootCommand();
+    }
+
+    @Override
+    public Map<String, AnnotationCommand> getCommands() {
+        return load().getCommands();
+    }
+
+    @Override
+    public Object getOwner() {
+        return load().getOwner();
+    }
+
+}
@@ -0,0 +1,263 @@
+package com.github.maxstupo.jannocli;
+
+/**
+ * Exception free number scanners. Each scanner validates and converts its input in a single pass, writing the value into a destination array
+ * instead of throwing on malformed input.
+ * <p>
+ * The accepted formats are the same as {@link Long#parseLong(String)} and {@link Double#parseDouble(String)}.
+ *
+ * @author Maxstupo
+ */
+final class Numbers {
+
+    /** Powers of ten that are exactly representable as a double. */
+    private static final double[] DOUBLE_POW10 = new double[23];
+    /** Powers of ten that are exactly representable as a float. */
+    private static final float[] FLOAT_POW10 = new float[11];
+
+    /** The most decimal digits a double significand can always hold exactly. */
+    private static final int MAX_DOUBLE_DIGITS = 15;
+    /** The largest integer a float can hold exactly. */
+    private static final long MAX_FLOAT_SIGNIFICAND = 1L << 24;
+
+    static {
+        DOUBLE_POW10[0] = 1;
+        for (int i = 1; i < DOUBLE_POW10.length; i++)
+            DOUBLE_POW10[i] = DOUBLE_POW10[i - 1] * 10;
+        FLOAT_POW10[0] = 1;
+        for (int i = 1; i < FLOAT_POW10.length; i++)
+            FLOAT_POW10[i] = FLOAT_POW10[i - 1] * 10;
+    }
+
+    private Numbers() {
+
+    }
+
+    /**
+     * Scans a base 10 integer within the given range.
+     *
+     * @param s
+     *            the text to scan.
+     * @param min
+     *            the smallest allowed value, must be negative.
+     * @param max
+     *            the largest allowed value, must be positive.
+     * @param dest
+     *            the array to store the value in.
+     * @param index
+     *            the index to store the value at.
+     * @return true if the text is an integer within the range, false if it is malformed or overflows.
+     */
+    static boolean parseLong(CharSequence s, long min, long max, long[] dest, int index) {
+        final int length = s.length();
+        if (length == 0)
+            return false;
+
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == length)
+                return false;
+        }
+
+        // Accumulate negatively, as the negative range is larger than the positive range.
+        final long limit = negative ? min : -max;
+        final long multmin = limit / 10;
+        long result = 0;
+
+        for (; i < length; i++) {
+            int digit = digit(s.charAt(i));
+            if (digit < 0 || result < multmin)
+                return false;
+            result *= 10;
+            if (result < limit + digit)
+                return false;
+            result -= digit;
+        }
+
+        dest[index] = negative ? result : -result;
+        return true;
+    }
+
+    /**
+     * Scans a floating point number.
+     *
+     * @param s
+     *            the text to scan.
+     * @param isFloat
+     *            true if the value is for a float, rounding is done to float precision.
+     * @param dest
+     *            the array to store the value in.
+     * @param index
+     *            the index to store the value at.
+     * @return true if the text is a number, false if it is malformed.
+     */
+    static boolean parseDouble(CharSequence s, boolean isFloat, double[] dest, int index) {
+        int start = 0;
+        int end = s.length();
+
+        // Leading and trailing whitespace is ignored, the same as Double.parseDouble().
+        while (start < end && s.charAt(start) <= ' ')
+            start++;
+        while (end > start && s.charAt(end - 1) <= ' ')
+            end--;
+        if (start == end)
+            return false;
+
+        int i = start;
+        boolean negative = false;
+        char first = s.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == end)
+                return false;
+        }
+
+        if (regionEquals(s, i, end, "NaN")) {
+            dest[index] = Double.NaN;
+            return true;
+        }
+        if (regionEquals(s, i, end, "Infinity")) {
+            dest[index] = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            return true;
+        }
+
+        if (end - i > 1 && s.charAt(i) == '0' && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X')) {
+            if (!isHexFloat(s, i + 2, end))
+                return false;
+            return parseSlow(s, start, end, isFloat, dest, index);
+        }
+
+        long significand = 0;
+        int significantDigits = 0;
+        int exponent = 0; // The decimal exponent of the significand.
+        int digits = 0;
+        boolean dot = false;
+
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (significantDigits > 0 || c != '0') {
+                    if (significantDigits < 18) {
+                        significand = significand * 10 + (c - '0');
+                        if (dot)
+                            exponent--;
+                    } else if (!dot) {
+                        exponent++;
+                    }
+                    significantDigits++;
+                } else if (dot) {
+                    exponent--;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0)
+            return false;
+
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            int expStart = ++i;
+            if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+                i++;
+            if (i == end || s.charAt(i) < '0' || s.charAt(i) > '9')
+                return false;
+
+            long exp = 0;
+            for (; i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9'; i++) {
+                if (exp < Integer.MAX_VALUE)
+                    exp = exp * 10 + (s.charAt(i) - '0');
+            }
+            exponent = (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, exponent + (s.charAt(expStart) == '-' ? -exp : exp)));
+        }
+
+        if (i < end && isSuffix(s.charAt(i)))
+            i++;
+        if (i != end)
+            return false;
+
+        // Fast path: the significand and the power of ten are both exact, so a single operation gives a correctly rounded result.
+        if (significand == 0) {
+            dest[index] = negative ? -0.0 : 0.0;
+            return true;
+        }
+        if (isFloat) {
+            if (significantDigits <= 18 && significand < MAX_FLOAT_SIGNIFICAND && Math.abs(exponent) < FLOAT_POW10.length) {
+                float value = (exponent >= 0) ? (float) significand * FLOAT_POW10[exponent] : (float) significand / FLOAT_POW10[-exponent];
+                dest[index] = negative ? -value : value;
+                return true;
+            }
+        } else if (significantDigits <= MAX_DOUBLE_DIGITS && Math.abs(exponent) < DOUBLE_POW10.length) {
+            double value = (exponent >= 0) ? significand * DOUBLE_POW10[exponent] : significand / DOUBLE_POW10[-exponent];
+            dest[index] = negative ? -value : value;
+            return true;
+        }
+
+        return parseSlow(s, start, end, isFloat, dest, index);
+    }
+
+    /** Converts text already validated by {@link #parseDouble(CharSequence, boolean, double[], int)}, so it can't throw. */
+    private static boolean parseSlow(CharSequence s, int start, int end, boolean isFloat, double[] dest, int index) {
+        String str = s.subSequence(start, end).toString();
+        dest[index] = isFloat ? Float.parseFloat(str) : Double.parseDouble(str);
+        return true;
+    }
+
+    /** Validates the remainder of a hexadecimal floating point number, after the "0x" prefix. */
+    private static boolean isHexFloat(CharSequence s, int i, int end) {
+        int digits = 0;
+        boolean dot = false;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (Character.digit(c, 16) >= 0 && c < 128) {
+                digits++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0 || i == end || (s.charAt(i) != 'p' && s.charAt(i) != 'P'))
+            return false;
+
+        i++;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+            i++;
+        if (i == end || s.charAt(i) < '0' || s.charAt(i) > '9')
+            return false;
+        while (i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9')
+            i++;
+
+        if (i < end && isSuffix(s.charAt(i)))
+            i++;
+        return i == end;
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        if (c < 128)
+            return -1;
+        return Character.digit(c, 10);
+    }
+
+    private static boolean regionEquals(CharSequence s, int start, int end, String str) {
+        if (end - start != str.length())
+            return false;
+        for (int i = 0; i < str.length(); i++) {
+            if (s.charAt(start + i) != str.charAt(i))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,274 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.maxstupo.jannocli.convert.ConverterRegistry;
+import com.github.maxstupo.jannocli.convert.IParamConverter;
+
+/**
+ * The parameter layout of a command, built once when the command is registered. It holds a converter for each typed position and the alias table
+ * shared by every {@link Parameters} object it creates, so each token is validated and converted in a single pass.
+ *
+ * @author Maxstupo
+ */
+final class ParameterSchema {
+
+    private final Converter[] converters;
+    private final Map<String, Integer> aliasLookup;
+
+    /**
+     * @param types
+     *            the types of each parameter.
+     * @param aliases
+     *            the aliases of each parameter.
+     * @param registry
+     *            the converters registered with the command-line, or null to only use the built-in and discovered converters.
+     */
+    ParameterSchema(Class<?>[] types, String[] aliases, ConverterRegistry registry) {
+        this.converters = new Converter[types.length];
+        for (int i = 0; i < types.length; i++)
+            converters[i] = converterFor(types[i], registry);
+
+        Map<String, Integer> lookup = new HashMap<>();
+        for (int i = 0; i < aliases.length; i++)
+            lookup.put(aliases[i], i);
+        this.aliasLookup = Collections.unmodifiableMap(lookup);
+    }
+
+    /**
+     * Returns the parsed parameters, or null if there are less parameters than types or a parameter can't be converted to its type.
+     */
+    Parameters parse(String[] parameters) {
+        if (parameters.length < converters.length)
+            return null;
+        return convert(parameters);
+    }
+
+    /**
+     * Returns the parsed parameters for the tokens between <code>from</code> (inclusive) and <code>to</code> (exclusive), or null if there are less
+     * tokens than types or a token can't be converted to its type.
+     * <p>
+     * Typed parameters are always converted here, as that is what decides the result. If <code>lazy</code> is true the strings of untyped
+     * parameters are only created when they are first accessed.
+     */
+    Parameters parse(Tokenizer tokens, int from, int to, boolean lazy) {
+        int count = to - from;
+        if (count < converters.length)
+            return null;
+
+        // Deferred parameters keep offsets into the line, so it must outlive the tokenizer. A line that isn't a string is copied once, when the
+        // first parameter is deferred.
+        String line = null;
+
+        Parameters params = new Parameters(new Object[count], aliasLookup);
+        for (int i = 0; i < count; i++) {
+            if (i < converters.length) {
+                if (!converters[i].convert(tokens.get(from + i), params, i))
+                    return null;
+            } else if (lazy && tokens.isView(from + i)) {
+                if (line == null)
+                    line = tokens.line();
+                params.setDeferred(i, line, tokens.start(from + i), tokens.end(from + i));
+            } else {
+                params.set(i, tokens.getString(from + i));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Returns the parsed parameters, or null if a parameter can't be converted to its type. Unlike {@link #parse(String[])} missing parameters are
+     * allowed.
+     */
+    Parameters convert(String[] parameters) {
+        Parameters params = new Parameters(new Object[parameters.length], aliasLookup);
+        for (int i = 0; i < parameters.length; i++) {
+            if (i < converters.length) {
+                if (!converters[i].convert(parameters[i], params, i))
+                    return null;
+            } else {
+                params.set(i, parameters[i]);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Returns the converter for the given type. Converters registered with the command-line come first, then the built-in converters, then the
+     * converters discovered with {@link java.util.ServiceLoader}. Parameters of any other type are left as strings.
+     */
+    private static Converter converterFor(Class<?> type, ConverterRegistry registry) {
+        IParamConverter<?> custom = (registry != null) ? registry.getRegistered(type) : null;
+        if (custom != null)
+            return new CustomConverter(custom);
+
+        if (type.isEnum())
+            return new EnumConverter(type);
+        if (Util.isAssignable(type, float.class))
+            return FLOAT;
+        if (Util.isAssignable(type, double.class))
+            return DOUBLE;
+        if (Util.isAssignable(type, int.class))
+            return INT;
+        if (Util.isAssignable(type, long.class))
+            return LONG;
+        if (Util.isAssignable(type, short.class))
+            return SHORT;
+        if (Util.isAssignable(type, byte.class))
+            return BYTE;
+        if (Util.isAssignable(type, boolean.class))
+            return BOOLEAN;
+        if (Util.isAssignable(type, char.class))
+            return CHAR;
+
+        IParamConverter<?> discovered = ConverterRegistry.getDiscovered(type);
+        if (discovered != null)
+            return new CustomConverter(discovered);
+        return STRING;
+    }
+
+    /** Validates and converts a single parameter, storing the value within the {@link Parameters} object. */
+    abstract static class Converter {
+
+        /**
+         * Converts the given value and stores it at the given index.
+         *
+         * @return false if the value can't be converted.
+         */
+        abstract boolean convert(CharSequence value, Parameters out, int index);
+    }
+
+    private static final Converter STRING = new Converter() {
+
+        @Override
+        boolean convert(CharSequence value, Parameters out, int index) {
+            out.set(index, value.toString());
+            return true;
+        }
+    };
+
+    private static final Converter BOOLEAN = new Converter() {
+
+        @Override
+        boolean convert(CharSequence value, Parameters out, int index) {
+            if (equalsIgnoreCase(value, "true")) {
+                out.setLong(index, Parameters.TYPE_BOOLEAN, 1);
+            } else if (equalsIgnoreCase(value, "false")) {
+                out.setLong(index, Parameters.TYPE_BOOLEAN, 0);
+            } else {
+                return false;
+            }
+            return true;
+        }
+    };
+
+    private static final Converter INT = new IntegerConverter(Parameters.TYPE_INT, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    private static final Converter LONG = new IntegerConverter(Parameters.TYPE_LONG, Long.MIN_VALUE, Long.MAX_VALUE);
+    private static final Converter SHORT = new IntegerConverter(Parameters.TYPE_SHORT, Short.MIN_VALUE, Short.MAX_VALUE);
+    private static final Converter BYTE = new IntegerConverter(Parameters.TYPE_BYTE, Byte.MIN_VALUE, Byte.MAX_VALUE);
+    private static final Converter FLOAT = new DecimalConverter(Parameters.TYPE_FLOAT);
+    private static final Converter DOUBLE = new DecimalConverter(Parameters.TYPE_DOUBLE);
+
+    private static final Converter CHAR = new Converter() {
+
+        @Override
+        boolean convert(CharSequence value, Parameters out, int index) {
+            if (value.length() != 1)
+                return false;
+            out.setLong(index, Parameters.TYPE_CHAR, value.charAt(0));
+            return true;
+        }
+    };
+
+    /** Scans integers within a range straight into the unboxed storage of {@link Parameters}, without throwing on malformed input. */
+    private static final class IntegerConverter extends Converter {
+
+        private final byte type;
+        private final long min;
+        private final long max;
+
+        IntegerConverter(byte type, long min, long max) {
+            this.type = type;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        boolean convert(CharSequence value, Parameters out, int index) {
+            if (!Numbers.parseLong(value, min, max, out.longSlots(), index))
+                return false;
+            out.setType(index, type);
+            return true;
+        }
+    }
+
+    /** Scans floating point numbers straight into the unboxed storage of {@link Parameters}, without throwing on malformed input. */
+    private static final class DecimalConverter extends Converter {
+
+        private final byte type;
+
+        DecimalConverter(byte type) {
+            this.type = type;
+        }
+
+        @Override
+        boolean convert(CharSequence value, Parameters out, int index) {
+            if (!Numbers.parseDouble(value, type == Parameters.TYPE_FLOAT, out.doubleSlots(), index))
+                return false;
+            out.setType(index, type);
+            return true;
+        }
+    }
+
+    /** Matches enum constants by {@link Object#toString()}, ignoring case, using a lookup table built once per enum parameter. */
+    private static final class EnumConverter extends Converter {
+
+        private final KeywordIndex<Object> constants = new KeywordIndex<>(true);
+
+        EnumConverter(Class<?> type) {
+            for (Object constant : type.getEnumConstants())
+                constants.putIfAbsent(constant.toString(), constant);
+        }
+
+        @Override
+        boolean convert(CharSequence value, Parameters out, int index) {
+            Object constant = constants.get(value);
+            if (constant == null)
+                return false;
+            out.set(index, constant);
+            return true;
+        }
+    }
+
+    /** Adapts an {@link IParamConverter}, a null result means the value can't be converted. */
+    private static final class CustomConverter extends Converter {
+
+        private final IParamConverter<?> converter;
+
+        CustomConverter(IParamConverter<?> converter) {
+            this.converter = converter;
+        }
+
+        @Override
+        boolean convert(CharSequence value, Parameters out, int index) {
+            Object converted = converter.convert(value);
+            if (converted == null)
+                return false;
+            out.set(index, converted);
+            return true;
+        }
+    }
+
+    private static boolean equalsIgnoreCase(CharSequence value, String str) {
+        if (value.length() != str.length())
+            return false;
+        for (int i = 0; i < str.length(); i++) {
+            char c = value.charAt(i);
+            if (c != str.charAt(i) && Character.toLowerCase(c) != str.charAt(i))
+                return false;
+        }
+        return true;
+    }
+}
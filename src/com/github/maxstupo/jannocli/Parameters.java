@@ -1,460 +1,696 @@
-package com.github.maxstupo.jannocli;
-
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-
-/**
- * This class allows for both easy retrieval of parameter values and {@link #parse(String[], Class[], String[]) parsing} of parameter strings.
- * 
- * @author Maxstupo
- */
-public class Parameters {
-
-    private final Object[] objects;
-    private final Map<String, Integer> aliasLookup = new HashMap<>();
-
-    private Parameters(Object[] objects, String[] aliases) {
-        this.objects = objects;
-        for (int i = 0; i < aliases.length; i++)
-            aliasLookup.put(aliases[i], i);
-    }
-
-    /**
-     * Returns the total number of parameters.
-     * 
-     * @return the total number of parameters.
-     */
-    public int getCount() {
-        return objects.length;
-    }
-
-    /**
-     * Returns true if the given <code>index</code> is valid.
-     * 
-     * @param index
-     *            the index to check.
-     * @return true if the given <code>index</code> is valid.
-     */
-    public boolean has(int index) {
-        return index >= 0 && index < objects.length;
-    }
-
-    /**
-     * Returns the index for the given alias.
-     * 
-     * @param alias
-     *            the alias to lookup.
-     * @return the index for the given alias.
-     */
-    public int getAliasIndex(String alias) {
-        Integer index = aliasLookup.get(alias);
-        return (index != null) ? index : -1;
-    }
-
-    /**
-     * Returns the parameter value at the given index, cast to the given type.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @param type
-     *            the type to cast the parameter as.
-     * @return the cast parameter or null.
-     */
-    public <T> T get(int index, Class<T> type) {
-        return get(index, type, null);
-    }
-
-    /**
-     * Returns the parameter value at the given index, cast to the given type. If the parameter doesn't exist the given <code>defaultValue</code> will
-     * be returned.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @param type
-     *            the type to cast the parameter as.
-     * @param defaultValue
-     *            the default value to return if the parameter index doesn't exist.
-     * @return the cast parameter or the <code>defaultValue</code>.
-     */
-    @SuppressWarnings("unchecked")
-    public <T> T get(int index, Class<T> type, T defaultValue) {
-        if (!has(index))
-            return defaultValue;
-        return (T) objects[index];
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given or the default value cast to the given type.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @param type
-     *            the type to cast the parameter as.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value referenced by the alias given or the default value cast to the given type.
-     */
-    public <T> T get(String alias, Class<T> type, T defaultValue) {
-        return get(getAliasIndex(alias), type, defaultValue);
-    }
-
-    /**
-     * Returns the parameter value at the given index or null.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @return the parameter value at the given index or null.
-     */
-    public String get(int index) {
-        return get(index, (String) null);
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given or the default value.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value referenced by the alias given or the default value.
-     */
-    public String get(String alias, String defaultValue) {
-        return get(getAliasIndex(alias), defaultValue);
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given, or null.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @return the parameter value referenced by the alias given, or null.
-     */
-    public String get(String alias) {
-        return get(getAliasIndex(alias));
-    }
-
-    /**
-     * Returns the parameter value at the given index or the default value.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value at the given index or the default value.
-     */
-    public String get(int index, String defaultValue) {
-        return get(index, String.class, defaultValue);
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given, or 0.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @return the parameter value referenced by the alias given, or 0.
-     */
-    public float getFloat(String alias) {
-        return getFloat(getAliasIndex(alias));
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given or the default value.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value referenced by the alias given or the default value.
-     */
-    public float getFloat(String alias, float defaultValue) {
-        return getFloat(getAliasIndex(alias), defaultValue);
-    }
-
-    /**
-     * Returns the parameter value at the given index or 0.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @return the parameter value at the given index or 0.
-     */
-    public float getFloat(int index) {
-        return getFloat(index, 0F);
-    }
-
-    /**
-     * Returns the parameter value at the given index or the default value.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value at the given index or the default value.
-     */
-    public float getFloat(int index, float defaultValue) {
-        return get(index, float.class, defaultValue);
-    }
-
-    /**
-     * Returns the parameter value at the given index or 0.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @return the parameter value at the given index or 0.
-     */
-    public long getLong(int index) {
-        return getLong(index, 0L);
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given or the default value.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value referenced by the alias given or the default value.
-     */
-    public long getLong(String alias, long defaultValue) {
-        return getLong(getAliasIndex(alias), defaultValue);
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given, or 0.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @return the parameter value referenced by the alias given, or 0.
-     */
-    public long getLong(String alias) {
-        return getLong(getAliasIndex(alias));
-    }
-
-    /**
-     * Returns the parameter value at the given index or the default value.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value at the given index or the default value.
-     */
-    public long getLong(int index, long defaultValue) {
-        return get(index, long.class, defaultValue);
-    }
-
-    /**
-     * Returns the parameter value at the given index or 0.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @return the parameter value at the given index or 0.
-     */
-    public int getInt(int index) {
-        return getInt(index, 0);
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given or the default value.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value referenced by the alias given or the default value.
-     */
-    public int getInt(String alias, int defaultValue) {
-        return getInt(getAliasIndex(alias), defaultValue);
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given, or 0.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @return the parameter value referenced by the alias given, or 0.
-     */
-    public int getInt(String alias) {
-        return getInt(getAliasIndex(alias));
-    }
-
-    /**
-     * Returns the parameter value at the given index or the default value.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value at the given index or the default value.
-     */
-    public int getInt(int index, int defaultValue) {
-        return get(index, int.class, defaultValue);
-    }
-
-    /**
-     * Returns the parameter value at the given index or false.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @return the parameter value at the given index or false.
-     */
-    public boolean getBoolean(int index) {
-        return getBoolean(index, false);
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given, or the default value.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value referenced by the alias given, or the default value.
-     */
-    public boolean getBoolean(String alias, boolean defaultValue) {
-        return getBoolean(getAliasIndex(alias), defaultValue);
-    }
-
-    /**
-     * Returns the parameter value referenced by the alias given, or false.
-     * 
-     * @param alias
-     *            the alias of the parameter.
-     * @return the parameter value referenced by the alias given, or false.
-     */
-    public boolean getBoolean(String alias) {
-        return getBoolean(getAliasIndex(alias));
-    }
-
-    /**
-     * Returns the parameter value at the given index or the default value.
-     * 
-     * @param index
-     *            the index of the parameter.
-     * @param defaultValue
-     *            the default value.
-     * @return the parameter value at the given index or the default value.
-     */
-    public boolean getBoolean(int index, boolean defaultValue) {
-        return get(index, boolean.class, defaultValue);
-    }
-
-    /**
-     * Parses the given parameter string array and returns a formal parameter object. Use {@link #check(String[], Class[])} to check if parameter
-     * string is valid.
-     * 
-     * @param parameters
-     *            the parameters.
-     * @param types
-     *            the types of each parameter.
-     * @param aliases
-     *            the aliases of each parameter instead of an index. The {@link Parameters} object uses this to get a parameter value with a name
-     *            instead of an index.
-     * @return a new {@link Parameters} object containing the parsed parameters given.
-     */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    public static Parameters parse(String[] parameters, Class<?>[] types, String[] aliases) {
-
-        Object[] arr = new Object[parameters.length];
-
-        for (int i = 0; i < parameters.length; i++) {
-            String value = parameters[i];
-            Class<?> type = i < types.length ? types[i] : null;
-
-            if (type != null) {
-                if (type.isEnum()) {
-                    arr[i] = Enum.valueOf((Class<Enum>) type, value.toUpperCase());
-                } else if (Util.isAssignable(type, float.class)) {
-                    arr[i] = Float.parseFloat(value);
-                } else if (Util.isAssignable(type, int.class)) {
-                    arr[i] = Integer.parseInt(value);
-                } else if (Util.isAssignable(type, long.class)) {
-                    arr[i] = Long.parseLong(value);
-                } else if (Util.isAssignable(type, boolean.class)) {
-                    arr[i] = Boolean.parseBoolean(value);
-                } else {
-                    arr[i] = value;
-                }
-            } else {
-                arr[i] = value;
-            }
-        }
-
-        return new Parameters(arr, aliases);
-    }
-
-    /**
-     * Returns true if the given parameter string array matches the corresponding type array.
-     * 
-     * @param parameters
-     *            the parameters in string form.
-     * @param types
-     *            the type of each parameter. Supported types are {@link Float}, {@link Integer}, {@link Long}, {@link Boolean} and {@link Enum}
-     * @return true if the given parameter string array matches the corresponding type array.
-     */
-    public static boolean check(String[] parameters, Class<?>[] types) {
-        if (parameters.length < types.length)
-            return false;
-
-        for (int i = 0; i < types.length; i++) {
-            Class<?> type = types[i];
-            String value = parameters[i];
-
-            if (type.isEnum()) {
-                boolean found = false;
-                for (Object obj : type.getEnumConstants()) {
-                    if (value.toLowerCase().equals(obj.toString().toLowerCase()))
-                        found = true;
-                }
-                if (!found)
-                    return false;
-
-            } else if (Util.isAssignable(type, float.class)) {
-                if (!Util.isFloat(value))
-                    return false;
-
-            } else if (Util.isAssignable(type, int.class)) {
-                if (!Util.isInt(value))
-                    return false;
-
-            } else if (Util.isAssignable(type, long.class)) {
-                if (!Util.isLong(value))
-                    return false;
-
-            } else if (Util.isAssignable(type, boolean.class)) {
-                if (!value.equalsIgnoreCase("false") && !value.equalsIgnoreCase("true"))
-                    return false;
-            }
-        }
-        return true;
-    }
-
-    @Override
-    public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((aliasLookup == null) ? 0 : aliasLookup.hashCode());
-        result = prime * result + Arrays.hashCode(objects);
-        return result;
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj)
-            return true;
-        if (obj == null)
-            return false;
-        if (getClass() != obj.getClass())
-            return false;
-        Parameters other = (Parameters) obj;
-        if (aliasLookup == null) {
-            if (other.aliasLookup != null)
-                return false;
-        } else if (!aliasLookup.equals(other.aliasLookup))
-            return false;
-        if (!Arrays.equals(objects, other.objects))
-            return false;
-        return true;
-    }
-
-}
+package com.github.maxstupo.jannocli;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * This class allows for both easy retrieval of parameter values and {@link #parse(String[], Class[], String[]) parsing} of parameter strings.
+ * <p>
+ * Parameters can be read from any thread once the command has been handed them, including parameters created lazily on first access.
+ * 
+ * @author Maxstupo
+ */
+public class Parameters {
+
+    /** The type of a parameter stored within {@link #objects}. */
+    static final byte TYPE_OBJECT = 0;
+    /** The types of parameters stored unboxed within {@link #longs}. */
+    static final byte TYPE_BOOLEAN = 1, TYPE_INT = 2, TYPE_LONG = 3, TYPE_SHORT = 4, TYPE_BYTE = 5, TYPE_CHAR = 6;
+    /** The types of parameters stored unboxed within {@link #doubles}. */
+    static final byte TYPE_FLOAT = 7, TYPE_DOUBLE = 8;
+    /** The type of a string parameter not yet created, its offsets within {@link #source} are packed within {@link #longs}. */
+    static final byte TYPE_DEFERRED = 9;
+
+    private final Object[] objects;
+    private final Map<String, Integer> aliasLookup;
+
+    // Primitive parameters are stored unboxed, the arrays are only created if the command has primitive parameters.
+    private byte[] types;
+    private long[] longs;
+    private double[] doubles;
+
+    /** The line deferred parameters are taken from. */
+    private String source;
+
+    /**
+     * @param objects
+     *            the array the parameter values are stored in.
+     * @param aliasLookup
+     *            the index of each parameter alias, shared between all parameters of a command.
+     */
+    Parameters(Object[] objects, Map<String, Integer> aliasLookup) {
+        this.objects = objects;
+        this.aliasLookup = aliasLookup;
+    }
+
+    void set(int index, Object value) {
+        objects[index] = value;
+    }
+
+    void setLong(int index, byte type, long value) {
+        longSlots()[index] = value;
+        setType(index, type);
+    }
+
+    /**
+     * Stores a string parameter without creating it, the string is created when the parameter is first accessed.
+     */
+    void setDeferred(int index, String source, int start, int end) {
+        this.source = source;
+        setLong(index, TYPE_DEFERRED, ((long) start << 32) | end);
+    }
+
+    /** Returns the array unboxed integer parameters are stored in, so a value can be scanned straight into it. */
+    long[] longSlots() {
+        if (longs == null)
+            longs = new long[objects.length];
+        return longs;
+    }
+
+    /** Returns the array unboxed floating point parameters are stored in, so a value can be scanned straight into it. */
+    double[] doubleSlots() {
+        if (doubles == null)
+            doubles = new double[objects.length];
+        return doubles;
+    }
+
+    void setType(int index, byte type) {
+        if (types == null)
+            types = new byte[objects.length];
+        types[index] = type;
+    }
+
+    private static boolean isIntegral(byte type) {
+        return type == TYPE_INT || type == TYPE_LONG || type == TYPE_SHORT || type == TYPE_BYTE;
+    }
+
+    private byte typeOf(int index) {
+        return (types != null) ? types[index] : TYPE_OBJECT;
+    }
+
+    /** Returns the parameter at the given index, boxing it if it is stored unboxed. */
+    private Object box(int index) {
+        switch (typeOf(index)) {
+            case TYPE_BOOLEAN:
+                return longs[index] != 0;
+            case TYPE_INT:
+                return (int) longs[index];
+            case TYPE_LONG:
+                return longs[index];
+            case TYPE_SHORT:
+                return (short) longs[index];
+            case TYPE_BYTE:
+                return (byte) longs[index];
+            case TYPE_CHAR:
+                return (char) longs[index];
+            case TYPE_FLOAT:
+                return (float) doubles[index];
+            case TYPE_DOUBLE:
+                return doubles[index];
+            case TYPE_DEFERRED:
+                return materialize(index);
+            default:
+                return objects[index];
+        }
+    }
+
+    /**
+     * Creates a deferred string parameter and keeps it, so later accesses don't create it again. The type stays deferred and only the kept string
+     * is published, so a thread reading it at the same time either sees the complete string or creates an equal one itself; strings are safe to
+     * share without synchronization.
+     */
+    private String materialize(int index) {
+        String value = (String) objects[index];
+        if (value == null) {
+            long span = longs[index];
+            value = source.substring((int) (span >>> 32), (int) span);
+            objects[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the total number of parameters.
+     * 
+     * @return the total number of parameters.
+     */
+    public int getCount() {
+        return objects.length;
+    }
+
+    /**
+     * Returns true if the given <code>index</code> is valid.
+     * 
+     * @param index
+     *            the index to check.
+     * @return true if the given <code>index</code> is valid.
+     */
+    public boolean has(int index) {
+        return index >= 0 && index < objects.length;
+    }
+
+    /**
+     * Returns the index for the given alias.
+     * 
+     * @param alias
+     *            the alias to lookup.
+     * @return the index for the given alias.
+     */
+    public int getAliasIndex(String alias) {
+        Integer index = aliasLookup.get(alias);
+        return (index != null) ? index : -1;
+    }
+
+    /**
+     * Returns the parameter value at the given index, cast to the given type.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param type
+     *            the type to cast the parameter as.
+     * @return the cast parameter or null.
+     */
+    public <T> T get(int index, Class<T> type) {
+        return get(index, type, null);
+    }
+
+    /**
+     * Returns the parameter value at the given index, cast to the given type. If the parameter doesn't exist the given <code>defaultValue</code> will
+     * be returned.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param type
+     *            the type to cast the parameter as.
+     * @param defaultValue
+     *            the default value to return if the parameter index doesn't exist.
+     * @return the cast parameter or the <code>defaultValue</code>.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(int index, Class<T> type, T defaultValue) {
+        if (!has(index))
+            return defaultValue;
+        return (T) box(index);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given or the default value cast to the given type.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @param type
+     *            the type to cast the parameter as.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value referenced by the alias given or the default value cast to the given type.
+     */
+    public <T> T get(String alias, Class<T> type, T defaultValue) {
+        return get(getAliasIndex(alias), type, defaultValue);
+    }
+
+    /**
+     * Returns the parameter value at the given index or null.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @return the parameter value at the given index or null.
+     */
+    public String get(int index) {
+        return get(index, (String) null);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given or the default value.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value referenced by the alias given or the default value.
+     */
+    public String get(String alias, String defaultValue) {
+        return get(getAliasIndex(alias), defaultValue);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given, or null.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @return the parameter value referenced by the alias given, or null.
+     */
+    public String get(String alias) {
+        return get(getAliasIndex(alias));
+    }
+
+    /**
+     * Returns the parameter value at the given index or the default value.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value at the given index or the default value.
+     */
+    public String get(int index, String defaultValue) {
+        return get(index, String.class, defaultValue);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given, or 0.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @return the parameter value referenced by the alias given, or 0.
+     */
+    public float getFloat(String alias) {
+        return getFloat(getAliasIndex(alias));
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given or the default value.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value referenced by the alias given or the default value.
+     */
+    public float getFloat(String alias, float defaultValue) {
+        return getFloat(getAliasIndex(alias), defaultValue);
+    }
+
+    /**
+     * Returns the parameter value at the given index or 0.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @return the parameter value at the given index or 0.
+     */
+    public float getFloat(int index) {
+        return getFloat(index, 0F);
+    }
+
+    /**
+     * Returns the parameter value at the given index or the default value.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value at the given index or the default value.
+     */
+    public float getFloat(int index, float defaultValue) {
+        if (has(index) && typeOf(index) == TYPE_FLOAT)
+            return (float) doubles[index];
+        return get(index, float.class, defaultValue);
+    }
+
+    /**
+     * Returns the parameter value at the given index or 0.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @return the parameter value at the given index or 0.
+     */
+    public long getLong(int index) {
+        return getLong(index, 0L);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given or the default value.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value referenced by the alias given or the default value.
+     */
+    public long getLong(String alias, long defaultValue) {
+        return getLong(getAliasIndex(alias), defaultValue);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given, or 0.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @return the parameter value referenced by the alias given, or 0.
+     */
+    public long getLong(String alias) {
+        return getLong(getAliasIndex(alias));
+    }
+
+    /**
+     * Returns the parameter value at the given index or the default value.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value at the given index or the default value.
+     */
+    public long getLong(int index, long defaultValue) {
+        if (has(index) && isIntegral(typeOf(index)))
+            return longs[index];
+        return get(index, long.class, defaultValue);
+    }
+
+    /**
+     * Returns the parameter value at the given index or 0.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @return the parameter value at the given index or 0.
+     */
+    public int getInt(int index) {
+        return getInt(index, 0);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given or the default value.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value referenced by the alias given or the default value.
+     */
+    public int getInt(String alias, int defaultValue) {
+        return getInt(getAliasIndex(alias), defaultValue);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given, or 0.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @return the parameter value referenced by the alias given, or 0.
+     */
+    public int getInt(String alias) {
+        return getInt(getAliasIndex(alias));
+    }
+
+    /**
+     * Returns the parameter value at the given index or the default value.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value at the given index or the default value.
+     */
+    public int getInt(int index, int defaultValue) {
+        byte type = has(index) ? typeOf(index) : TYPE_OBJECT;
+        if (type == TYPE_INT || type == TYPE_SHORT || type == TYPE_BYTE)
+            return (int) longs[index];
+        return get(index, int.class, defaultValue);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given, or 0.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @return the parameter value referenced by the alias given, or 0.
+     */
+    public double getDouble(String alias) {
+        return getDouble(getAliasIndex(alias));
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given or the default value.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value referenced by the alias given or the default value.
+     */
+    public double getDouble(String alias, double defaultValue) {
+        return getDouble(getAliasIndex(alias), defaultValue);
+    }
+
+    /**
+     * Returns the parameter value at the given index or 0.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @return the parameter value at the given index or 0.
+     */
+    public double getDouble(int index) {
+        return getDouble(index, 0D);
+    }
+
+    /**
+     * Returns the parameter value at the given index or the default value.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value at the given index or the default value.
+     */
+    public double getDouble(int index, double defaultValue) {
+        byte type = has(index) ? typeOf(index) : TYPE_OBJECT;
+        if (type == TYPE_DOUBLE || type == TYPE_FLOAT)
+            return doubles[index];
+        return get(index, double.class, defaultValue);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given, or 0.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @return the parameter value referenced by the alias given, or 0.
+     */
+    public short getShort(String alias) {
+        return getShort(getAliasIndex(alias));
+    }
+
+    /**
+     * Returns the parameter value at the given index or 0.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @return the parameter value at the given index or 0.
+     */
+    public short getShort(int index) {
+        return getShort(index, (short) 0);
+    }
+
+    /**
+     * Returns the parameter value at the given index or the default value.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value at the given index or the default value.
+     */
+    public short getShort(int index, short defaultValue) {
+        byte type = has(index) ? typeOf(index) : TYPE_OBJECT;
+        if (type == TYPE_SHORT || type == TYPE_BYTE)
+            return (short) longs[index];
+        return get(index, short.class, defaultValue);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given, or 0.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @return the parameter value referenced by the alias given, or 0.
+     */
+    public byte getByte(String alias) {
+        return getByte(getAliasIndex(alias));
+    }
+
+    /**
+     * Returns the parameter value at the given index or 0.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @return the parameter value at the given index or 0.
+     */
+    public byte getByte(int index) {
+        return getByte(index, (byte) 0);
+    }
+
+    /**
+     * Returns the parameter value at the given index or the default value.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value at the given index or the default value.
+     */
+    public byte getByte(int index, byte defaultValue) {
+        if (has(index) && typeOf(index) == TYPE_BYTE)
+            return (byte) longs[index];
+        return get(index, byte.class, defaultValue);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given, or the null character.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @return the parameter value referenced by the alias given, or the null character.
+     */
+    public char getChar(String alias) {
+        return getChar(getAliasIndex(alias));
+    }
+
+    /**
+     * Returns the parameter value at the given index or the null character.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @return the parameter value at the given index or the null character.
+     */
+    public char getChar(int index) {
+        return getChar(index, '\0');
+    }
+
+    /**
+     * Returns the parameter value at the given index or the default value.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value at the given index or the default value.
+     */
+    public char getChar(int index, char defaultValue) {
+        if (has(index) && typeOf(index) == TYPE_CHAR)
+            return (char) longs[index];
+        return get(index, char.class, defaultValue);
+    }
+
+    /**
+     * Returns the parameter value at the given index or false.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @return the parameter value at the given index or false.
+     */
+    public boolean getBoolean(int index) {
+        return getBoolean(index, false);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given, or the default value.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value referenced by the alias given, or the default value.
+     */
+    public boolean getBoolean(String alias, boolean defaultValue) {
+        return getBoolean(getAliasIndex(alias), defaultValue);
+    }
+
+    /**
+     * Returns the parameter value referenced by the alias given, or false.
+     * 
+     * @param alias
+     *            the alias of the parameter.
+     * @return the parameter value referenced by the alias given, or false.
+     */
+    public boolean getBoolean(String alias) {
+        return getBoolean(getAliasIndex(alias));
+    }
+
+    /**
+     * Returns the parameter value at the given index or the default value.
+     * 
+     * @param index
+     *            the index of the parameter.
+     * @param defaultValue
+     *            the default value.
+     * @return the parameter value at the given index or the default value.
+     */
+    public boolean getBoolean(int index, boolean defaultValue) {
+        if (has(index) && typeOf(index) == TYPE_BOOLEAN)
+            return longs[index] != 0;
+        return get(index, boolean.class, defaultValue);
+    }
+
+    /**
+     * Parses the given parameter string array and returns a formal parameter object. Use {@link #check(String[], Class[])} to check if parameter
+     * string is valid.
+     * 
+     * @param parameters
+     *            the parameters.
+     * @param types
+     *            the types of each parameter.
+     * @param aliases
+     *            the aliases of each parameter instead of an index. The {@link Parameters} object uses this to get a parameter value with a name
+     *            instead of an index.
+     * @return a new {@link Parameters} object containing the parsed parameters given.
+     * @throws IllegalArgumentException
+     *             if a parameter can't be converted to its type.
+     */
+    public static Parameters parse(String[] parameters, Class<?>[] types, String[] aliases) {
+        Parameters params = new ParameterSchema(types, aliases, null).convert(parameters);
+        if (params == null)
+            throw new IllegalArgumentException("The given parameters don't match the given types, use check() first");
+        return params;
+    }
+
+    /**
+     * Returns true if the given parameter string array matches the corresponding type array.
+     * 
+     * @param parameters
+     *            the parameters in string form.
+     * @param types
+     *            the type of each parameter. Supported types are {@link Float}, {@link Double}, {@link Integer}, {@link Long}, {@link Short},
+     *            {@link Byte}, {@link Character}, {@link Boolean} and {@link Enum}
+     * @return true if the given parameter string array matches the corresponding type array.
+     */
+    public static boolean check(String[] parameters, Class<?>[] types) {
+        return new ParameterSchema(types, new String[0], null).parse(parameters) != null;
+    }
+
+    private Object[] boxAll() {
+        if (types == null)
+            return objects;
+        Object[] arr = new Object[objects.length];
+        for (int i = 0; i < arr.length; i++)
+            arr[i] = box(i);
+        return arr;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((aliasLookup == null) ? 0 : aliasLookup.hashCode());
+        result = prime * result + Arrays.hashCode(boxAll());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        Parameters other = (Parameters) obj;
+        if (aliasLookup == null) {
+            if (other.aliasLookup != null)
+                return false;
+        } else if (!aliasLookup.equals(other.aliasLookup))
+            return false;
+        if (!Arrays.equals(boxAll(), other.boxAll()))
+            return false;
+        return true;
+    }
+
+}
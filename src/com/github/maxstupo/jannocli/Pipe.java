@@ -0,0 +1,154 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.github.maxstupo.jannocli.cli.IInput;
+import com.github.maxstupo.jannocli.cli.IPrint;
+
+/**
+ * Connects two stages of a pipeline. The upstream command prints to the pipe and the downstream command reads each printed line from it. The pipe
+ * holds a bounded number of lines, so a fast upstream command waits for the downstream command instead of buffering all of its output.
+ * <p>
+ * Once the reading side is closed, because the downstream command has finished, printing to the pipe throws a {@link ClosedException} to stop the
+ * upstream command, much like a process writing to a closed pipe. The exception isn't reported as an error.
+ * <p>
+ * The writing side is guarded by a {@link ReentrantLock} rather than a monitor, as printing waits for room while holding it and a virtual thread
+ * waiting inside a monitor would pin its carrier thread.
+ *
+ * @author Maxstupo
+ */
+final class Pipe implements IPrint, IInput {
+
+    /** The number of lines a pipe holds before printing to it waits. */
+    static final int CAPACITY = 256;
+
+    /** Marks the end of the input, compared by identity. */
+    private static final String END = new String();
+
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(CAPACITY);
+
+    /** Guards the writing side. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Text printed without a line separator, guarded by the lock. */
+    private final StringBuilder partial = new StringBuilder();
+
+    private volatile boolean readerClosed;
+    private boolean writerClosed;
+    private boolean ended; // Only used by the reader.
+
+    @Override
+    public void println(String line) {
+        lock.lock();
+        try {
+            if (partial.length() > 0) {
+                partial.append(line);
+                line = partial.toString();
+                partial.setLength(0);
+            }
+            put(line);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void print(String line) {
+        lock.lock();
+        try {
+            partial.append(line);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public IPrint append(CharSequence text, int start, int end) {
+        lock.lock();
+        try {
+            partial.append(text, start, end);
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    @Override
+    public IPrint append(char c) {
+        lock.lock();
+        try {
+            partial.append(c);
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    private void put(String line) {
+        if (writerClosed)
+            return;
+        if (readerClosed)
+            throw new ClosedException();
+        try {
+            queue.put(line);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Ends the input of the downstream command, after the text printed without a line separator if there is any.
+     */
+    void closeWriter() {
+        lock.lock();
+        try {
+            if (!readerClosed) {
+                if (partial.length() > 0)
+                    put(partial.toString());
+                put(END);
+            }
+            partial.setLength(0);
+            writerClosed = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards the lines waiting to be read and anything printed afterwards.
+     */
+    void closeReader() {
+        readerClosed = true;
+        queue.clear(); // Wakes an upstream command waiting for room.
+    }
+
+    @Override
+    public String readLine() {
+        if (ended || readerClosed)
+            return null;
+
+        try {
+            String line = queue.take();
+            if (line == END) {
+                ended = true;
+                return null;
+            }
+            return line;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /** Thrown to a command printing to a pipe that is no longer read. */
+    static final class ClosedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ClosedException() {
+            super("The next command of the pipeline has finished", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of running a script with a {@link ScriptRunner}.
+ *
+ * @author Maxstupo
+ */
+public class ScriptResult {
+
+    private final long lines;
+    private final long commands;
+    private final long failed;
+    private final long bytes;
+    private final long elapsedNanos;
+    private final boolean stopped;
+    private final List<Failure> failures;
+
+    ScriptResult(long lines, long commands, long failed, long bytes, long elapsedNanos, boolean stopped, List<Failure> failures) {
+        this.lines = lines;
+        this.commands = commands;
+        this.failed = failed;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+        this.stopped = stopped;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Returns the number of lines read, including blank lines and comments.
+     *
+     * @return the number of lines read.
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the number of lines dispatched as commands.
+     *
+     * @return the number of commands.
+     */
+    public long getCommands() {
+        return commands;
+    }
+
+    /**
+     * Returns the number of commands that weren't {@link CommandResult#EXECUTED executed}.
+     *
+     * @return the number of failed commands.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the number of bytes read.
+     *
+     * @return the number of bytes read.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the time taken to run the script.
+     *
+     * @param unit
+     *            the unit of the returned time.
+     * @return the time taken.
+     */
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of commands dispatched per second.
+     *
+     * @return the number of commands per second.
+     */
+    public double getCommandsPerSecond() {
+        return (elapsedNanos > 0) ? commands * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Returns true if the script was stopped by a failed command before its end.
+     *
+     * @return true if the script was stopped early.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Returns the failed commands. Every failure is recorded with the {@link ScriptRunner.ErrorPolicy#COLLECT COLLECT} policy, the failure that
+     * stopped the script with the {@link ScriptRunner.ErrorPolicy#STOP STOP} policy, and none with the {@link ScriptRunner.ErrorPolicy#CONTINUE
+     * CONTINUE} policy.
+     *
+     * @return the failed commands.
+     */
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d commands (%d lines, %d bytes) in %d ms, %.0f commands/s, %d failed%s", commands, lines, bytes, getElapsed(TimeUnit.MILLISECONDS), getCommandsPerSecond(), failed, stopped ? ", stopped" : "");
+    }
+
+    /** A command of a script that wasn't executed. */
+    public static class Failure {
+
+        private final long lineNumber;
+        private final String line;
+        private final CommandResult result;
+
+        Failure(long lineNumber, String line, CommandResult result) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.result = result;
+        }
+
+        /**
+         * Returns the line number within the script, starting at 1.
+         *
+         * @return the line number.
+         */
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        public CommandResult getResult() {
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return lineNumber + ": " + line + " (" + result + ")";
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package com.github.maxstupo.jannocli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import com.github.maxstupo.jannocli.cli.IPrint;
+import com.github.maxstupo.jannocli.cli.LineDecoder;
+
+/**
+ * This class runs a script, a file or stream with a command on each line, through a {@link CommandLine}. Blank lines and lines starting with
+ * <code>#</code> are skipped.
+ * <p>
+ * Files are memory-mapped and decoded in place, and each line is tokenized straight from the decoder's buffer, so no {@link String} is created for a
+ * line unless a command needs its parameters as strings. The output is flushed once when the script ends rather than after every line.
+ * <p>
+ * A line fails if its result is anything other than {@link CommandResult#EXECUTED}; what happens then is decided by the {@link ErrorPolicy}.
+ * <p>
+ * Lines run one after another by default. With a {@link #setParallelism(int) parallelism} above 1 they are dispatched on an executor, with up to
+ * that many lines running at once. The output of each line is then captured and written in one piece, in the order of the lines unless
+ * {@link #setOrderedOutput(boolean) ordered output} is disabled, so the output of two lines is never interleaved. A {@link #setBarrierMarker(String)
+ * barrier line} waits for every line before it to finish before later lines start, and a command with the
+ * {@link com.github.maxstupo.jannocli.annotation.Serial Serial} annotation always runs alone.
+ * <p>
+ * This class isn't thread safe, but a runner can be reused for many scripts.
+ *
+ * @author Maxstupo
+ */
+public class ScriptRunner {
+
+    /** What a {@link ScriptRunner} does when a line of a script fails. */
+    public enum ErrorPolicy {
+
+        /** Stop the script at the failed line. */
+        STOP,
+
+        /** Count the failure and run the rest of the script. */
+        CONTINUE,
+
+        /** Record the failed line and run the rest of the script. */
+        COLLECT
+    }
+
+    /** The largest region of a file mapped at once, so huge scripts don't need a huge address range. */
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+    /** The number of bytes decoded between checks for a stopped script. */
+    private static final int SLICE = 64 * 1024;
+
+    private final CommandLine commandLine;
+    private final IPrint ps;
+
+    private Charset charset = StandardCharsets.UTF_8;
+    private ErrorPolicy errorPolicy = ErrorPolicy.STOP;
+    private int parallelism = 1;
+    private boolean orderedOutput = true;
+    private String barrierMarker = "#barrier";
+    private boolean abbreviatedKeywords;
+    private Executor executor;
+
+    /**
+     * Create a new {@link ScriptRunner} that writes to the output of the given command-line.
+     *
+     * @param commandLine
+     *            the command-line to dispatch each line to.
+     */
+    public ScriptRunner(CommandLine commandLine) {
+        this(commandLine, commandLine.getOut());
+    }
+
+    /**
+     * Create a new {@link ScriptRunner}.
+     *
+     * @param commandLine
+     *            the command-line to dispatch each line to.
+     * @param ps
+     *            the output for the commands of the script.
+     */
+    public ScriptRunner(CommandLine commandLine, IPrint ps) {
+        this.commandLine = commandLine;
+        this.ps = ps;
+    }
+
+    /**
+     * Runs the script in the given file, mapping it into memory.
+     *
+     * @param path
+     *            the file to run.
+     * @return the outcome of the script.
+     * @throws IOException
+     *             if the file can't be read.
+     */
+    public ScriptResult run(Path path) throws IOException {
+        Run run = new Run();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+
+            while (!run.stopped) {
+                long length = Math.min(MAP_WINDOW, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == size;
+
+                run.decode(window);
+                if (last) {
+                    run.finish(window);
+                    break;
+                }
+
+                // Bytes of a character split by the end of the window are mapped again with the next window.
+                position += window.position();
+            }
+            run.bytes = size;
+        } finally {
+            run.awaitIdle();
+            ps.flush();
+        }
+        return run.result();
+    }
+
+    /**
+     * Runs the script read from the given channel until the end of the stream. The channel isn't closed.
+     *
+     * @param channel
+     *            the channel to read the script from, must be in blocking mode.
+     * @return the outcome of the script.
+     * @throws IOException
+     *             if the channel can't be read.
+     */
+    public ScriptResult run(ReadableByteChannel channel) throws IOException {
+        Run run = new Run();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SLICE);
+
+        try {
+            while (!run.stopped) {
+                int read = channel.read(buffer);
+                buffer.flip();
+
+                if (read < 0) {
+                    run.finish(buffer);
+                    break;
+                }
+
+                run.bytes += read;
+                run.decode(buffer);
+                buffer.compact();
+            }
+        } finally {
+            run.awaitIdle();
+            ps.flush();
+        }
+        return run.result();
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Sets the charset of scripts, UTF-8 by default.
+     *
+     * @param charset
+     *            the charset.
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public ErrorPolicy getErrorPolicy() {
+        return errorPolicy;
+    }
+
+    /**
+     * Sets what happens when a line fails, {@link ErrorPolicy#STOP} by default.
+     *
+     * @param errorPolicy
+     *            the error policy.
+     */
+    public void setErrorPolicy(ErrorPolicy errorPolicy) {
+        this.errorPolicy = errorPolicy;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of lines that can run at once, 1 by default. Only use a parallelism above 1 for scripts whose lines don't depend on each
+     * other, or separate the dependent parts with {@link #setBarrierMarker(String) barriers}.
+     *
+     * @param parallelism
+     *            the maximum number of lines running at once.
+     * @throws IllegalArgumentException
+     *             if the parallelism is less than 1.
+     */
+    public void setParallelism(int parallelism) throws IllegalArgumentException {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be at least 1: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    public boolean isOrderedOutput() {
+        return orderedOutput;
+    }
+
+    /**
+     * Sets if the output of parallel lines is written in the order of the lines, true by default. When disabled, the output of each line is
+     * written as soon as the line finishes, which keeps less output waiting behind a slow line.
+     *
+     * @param orderedOutput
+     *            true to write output in the order of the lines.
+     */
+    public void setOrderedOutput(boolean orderedOutput) {
+        this.orderedOutput = orderedOutput;
+    }
+
+    public String getBarrierMarker() {
+        return barrierMarker;
+    }
+
+    /**
+     * Sets the line that separates the parts of a parallel script, <code>#barrier</code> by default. Every line before a barrier finishes before any
+     * line after it starts. As the default starts with <code>#</code>, it is a comment when the script isn't run in parallel.
+     *
+     * @param barrierMarker
+     *            the barrier line, surrounding whitespace is ignored.
+     */
+    public void setBarrierMarker(String barrierMarker) {
+        this.barrierMarker = barrierMarker.trim();
+    }
+
+    public boolean isAbbreviatedKeywords() {
+        return abbreviatedKeywords;
+    }
+
+    /**
+     * Sets if the keywords of scripts can be abbreviated, false by default whatever the {@link CommandLine#setAbbreviatedKeywords(boolean) setting}
+     * of the command-line, so a script runs the same commands however many commands are registered later.
+     *
+     * @param abbreviatedKeywords
+     *            true to allow abbreviated keywords in scripts.
+     */
+    public void setAbbreviatedKeywords(boolean abbreviatedKeywords) {
+        this.abbreviatedKeywords = abbreviatedKeywords;
+    }
+
+    /**
+     * Returns the executor parallel lines are dispatched on.
+     *
+     * @return the executor, the {@link CommandLine#getExecutor() executor} of the command-line unless another has been set.
+     */
+    public Executor getExecutor() {
+        return (executor != null) ? executor : commandLine.getExecutor();
+    }
+
+    /**
+     * Sets the executor parallel lines are dispatched on, such as a {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @param executor
+     *            the executor, or null to use the executor of the command-line.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /** The state of a single run of a script. */
+    private final class Run implements LineDecoder.Handler {
+
+        private final LineDecoder decoder = new LineDecoder(charset);
+        private final ErrorPolicy policy = errorPolicy;
+        private final String barrier = barrierMarker;
+        private final boolean abbreviate = abbreviatedKeywords;
+        private final List<ScriptResult.Failure> failures = new ArrayList<>();
+        private final long startTime = System.nanoTime();
+
+        // Only used for parallel scripts.
+        private final int permitCount = parallelism;
+        private final Semaphore permits = (parallelism > 1) ? new Semaphore(parallelism) : null;
+        private final Executor executor = (parallelism > 1) ? getExecutor() : null;
+        private final Queue<Task> pending = (parallelism > 1 && orderedOutput) ? new ArrayDeque<Task>() : null;
+
+        /** Guards the counts of failures, the failures, and writing the output of parallel lines. */
+        private final Object lock = new Object();
+
+        long lines;
+        long commands;
+        long failed;
+        long bytes;
+        volatile boolean stopped;
+
+        /** Decodes the given bytes a slice at a time, so a stopped script doesn't decode the rest of a large buffer. */
+        void decode(ByteBuffer in) {
+            int end = in.limit();
+            int limit = in.position();
+            while (!stopped && in.position() < end) {
+                // The slice grows from the previous limit, so a character split by the slice is decoded with the next slice.
+                int position = in.position();
+                limit = (int) Math.min((long) Math.max(limit, position) + SLICE, end);
+                in.limit(limit);
+                decoder.decode(in, this);
+
+                // Only the bytes of a split character are left, which can't be decoded until more are read.
+                if (in.position() == position && limit == end)
+                    break;
+            }
+            in.limit(end);
+        }
+
+        void finish(ByteBuffer in) {
+            if (!stopped)
+                decoder.finish(in, this);
+        }
+
+        @Override
+        public void onLine(CharSequence line) {
+            if (stopped)
+                return;
+            lines++;
+
+            if (permits != null && isBarrier(line, barrier)) {
+                awaitIdle();
+                return;
+            }
+            if (isBlankOrComment(line))
+                return;
+
+            if (permits == null) {
+                commands++;
+                record(lines, line, commandLine.dispatchUnflushed(ps, line, abbreviate));
+                return;
+            }
+
+            // The line is kept until its command runs, so it can't be a view of the decoder's buffer.
+            String text = line.toString();
+            if (commandLine.isSerial(text, abbreviate)) {
+                awaitIdle();
+                if (stopped)
+                    return;
+                commands++;
+                record(lines, text, commandLine.dispatchUnflushed(ps, text, abbreviate));
+            } else {
+                submit(new Task(lines, text));
+            }
+        }
+
+        @Override
+        public void onLineTooLong() {
+            lines++;
+        }
+
+        private void submit(Task task) {
+            permits.acquireUninterruptibly();
+            if (stopped) {
+                permits.release();
+                return;
+            }
+
+            commands++;
+            if (pending != null) {
+                synchronized (lock) {
+                    pending.add(task);
+                }
+            }
+
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.result = CommandResult.FAILED;
+                complete(task);
+            }
+        }
+
+        /** Records the result of a parallel line and writes the output of every line that is ready. */
+        void complete(Task task) {
+            synchronized (lock) {
+                record(task.lineNumber, task.line, task.result);
+
+                if (pending == null) {
+                    task.out.writeTo(ps);
+                    permits.release();
+                    return;
+                }
+
+                task.done = true;
+                while (!pending.isEmpty() && pending.peek().done) {
+                    pending.poll().out.writeTo(ps);
+                    permits.release(); // Released once written, so output waiting behind a slow line is bounded by the parallelism.
+                }
+            }
+        }
+
+        private void record(long lineNumber, CharSequence line, CommandResult result) {
+            if (result == CommandResult.EXECUTED)
+                return;
+
+            synchronized (lock) {
+                failed++;
+                if (policy != ErrorPolicy.CONTINUE)
+                    failures.add(new ScriptResult.Failure(lineNumber, line.toString(), result));
+                if (policy == ErrorPolicy.STOP)
+                    stopped = true;
+            }
+        }
+
+        /** Waits until every parallel line has finished and its output has been written. */
+        void awaitIdle() {
+            if (permits == null)
+                return;
+            permits.acquireUninterruptibly(permitCount);
+            permits.release(permitCount);
+        }
+
+        ScriptResult result() {
+            synchronized (lock) {
+                List<ScriptResult.Failure> failures = new ArrayList<>(this.failures);
+                if (permits != null) {
+                    Collections.sort(failures, (a, b) -> Long.compare(a.getLineNumber(), b.getLineNumber()));
+
+                    // Lines running when the script stopped may have failed too, only the first failure stopped it.
+                    if (policy == ErrorPolicy.STOP && failures.size() > 1)
+                        failures.subList(1, failures.size()).clear();
+                }
+                return new ScriptResult(lines, commands, failed, bytes, System.nanoTime() - startTime, stopped, failures);
+            }
+        }
+
+        /** A line of a parallel script. */
+        private final class Task implements Runnable {
+
+            final long lineNumber;
+            final String line;
+            final CapturedPrint out = new CapturedPrint();
+
+            CommandResult result;
+            boolean done;
+
+            Task(long lineNumber, String line) {
+                this.lineNumber = lineNumber;
+                this.line = line;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    result = commandLine.dispatchUnflushed(out, line, abbreviate);
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                    result = CommandResult.FAILED;
+                } finally {
+                    complete(this);
+                }
+            }
+        }
+    }
+
+    private static boolean isBarrier(CharSequence line, String barrier) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && Character.isWhitespace(line.charAt(start)))
+            start++;
+        while (end > start && Character.isWhitespace(line.charAt(end - 1)))
+            end--;
+
+        if (end - start != barrier.length())
+            return false;
+        for (int i = 0; i < barrier.length(); i++) {
+            if (line.charAt(start + i) != barrier.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isBlankOrComment(CharSequence line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (!Character.isWhitespace(c))
+                return c == '#';
+        }
+        return true;
+    }
+
+    /** Captures the output of a parallel line, so it can be written in one piece once the line has finished. */
+    private static final class CapturedPrint implements IPrint {
+
+        private final StringBuilder text = new StringBuilder();
+
+        /** The offsets of the end of each line printed with a line separator. */
+        private int[] lineEnds = new int[4];
+        private int lineCount;
+
+        @Override
+        public void println(String line) {
+            println((CharSequence) line);
+        }
+
+        @Override
+        public void print(String line) {
+            text.append(line);
+        }
+
+        @Override
+        public void println(CharSequence line) {
+            text.append(line);
+            if (lineCount == lineEnds.length)
+                lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+            lineEnds[lineCount++] = text.length();
+        }
+
+        @Override
+        public void print(CharSequence text) {
+            this.text.append(text);
+        }
+
+        @Override
+        public IPrint append(CharSequence text, int start, int end) {
+            this.text.append(text, start, end);
+            return this;
+        }
+
+        @Override
+        public IPrint append(char c) {
+            text.append(c);
+            return this;
+        }
+
+        /** Writes the captured output to the given output, keeping the lines printed with a line separator. */
+        void writeTo(IPrint ps) {
+            int start = 0;
+            for (int i = 0; i < lineCount; i++) {
+                ps.println(CharBuffer.wrap(text, start, lineEnds[i]));
+                start = lineEnds[i];
+            }
+            if (start < text.length())
+                ps.print(CharBuffer.wrap(text, start, text.length()));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.maxstupo.jannocli;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import com.github.maxstupo.jannocli.annotation.Command;
+import com.github.maxstupo.jannocli.annotation.ParamAliases;
+import com.github.maxstupo.jannocli.annotation.ParamDescription;
+
+/**
+ * The built-in <code>source</code> command, which runs a script through the command-line it is registered with.
+ *
+ * @author Maxstupo
+ */
+@Command("source")
+class SourceCommand {
+
+    /** The deepest a script can source other scripts, so a script sourcing itself fails instead of overflowing the stack. */
+    private static final int MAX_DEPTH = 16;
+
+    private static final ThreadLocal<int[]> depth = new ThreadLocal<int[]>() {
+
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    private final CommandLine commandLine;
+
+    SourceCommand(CommandLine commandLine) {
+        this.commandLine = commandLine;
+    }
+
+    @Command(name = "Source", description = "Runs each line of a file as a command")
+    @ParamAliases({ "file", "policy" })
+    @ParamDescription({ "the script to run", "stop, continue or collect, stop by default" })
+    private void source(ExecutedCommand cmd) {
+        if (!cmd.parameters.has(0)) {
+            cmd.displayHelp = true;
+            return;
+        }
+        String file = cmd.parameters.get(0);
+
+        ScriptRunner runner = new ScriptRunner(commandLine, cmd.cli);
+        if (cmd.parameters.has(1)) {
+            try {
+                runner.setErrorPolicy(ScriptRunner.ErrorPolicy.valueOf(cmd.parameters.get(1).toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                cmd.displayHelp = true;
+                return;
+            }
+        }
+
+        int[] current = depth.get();
+        if (current[0] >= MAX_DEPTH) {
+            cmd.cli.println("Scripts can only be nested " + MAX_DEPTH + " deep: " + file);
+            cmd.failed = true;
+            return;
+        }
+
+        current[0]++;
+        try {
+            ScriptResult result = runner.run(Paths.get(file));
+            cmd.cli.println(file + ": " + result);
+            for (ScriptResult.Failure failure : result.getFailures())
+                cmd.cli.println("  " + failure);
+
+            // A script stopped by a failure fails the line that sourced it, so an outer script stops as well.
+            if (result.getFailed() > 0 && runner.getErrorPolicy() == ScriptRunner.ErrorPolicy.STOP)
+                cmd.failed = true;
+
+        } catch (IOException | InvalidPathException e) {
+            cmd.cli.println("Failed to read script: " + file + " (" + e + ")");
+            cmd.failed = true;
+        } finally {
+            current[0]--;
+        }
+    }
+}
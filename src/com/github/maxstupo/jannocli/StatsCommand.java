@@ -0,0 +1,90 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.Locale;
+import java.util.Map;
+
+import com.github.maxstupo.jannocli.annotation.Command;
+import com.github.maxstupo.jannocli.annotation.ParamAliases;
+import com.github.maxstupo.jannocli.annotation.ParamDescription;
+import com.github.maxstupo.jannocli.cli.IPrint;
+import com.github.maxstupo.jannocli.metrics.CommandMetrics;
+import com.github.maxstupo.jannocli.metrics.HistogramSnapshot;
+import com.github.maxstupo.jannocli.metrics.MetricsSnapshot;
+import com.github.maxstupo.jannocli.metrics.Phase;
+
+/**
+ * The built-in <code>stats</code> command, which displays and controls the metrics of the command-line it is registered with.
+ *
+ * @author Maxstupo
+ */
+@Command("stats")
+class StatsCommand {
+
+    private final CommandLine commandLine;
+
+    StatsCommand(CommandLine commandLine) {
+        this.commandLine = commandLine;
+    }
+
+    @Command(name = "Stats", description = "Displays command metrics, or turns them on, off or resets them")
+    @ParamAliases({ "action" })
+    @ParamDescription({ "on, off or reset, displays the metrics if not given" })
+    private void stats(ExecutedCommand cmd) {
+        if (cmd.parameters.has(0)) {
+            switch (cmd.parameters.get(0).toLowerCase(Locale.ROOT)) {
+                case "on":
+                    commandLine.getMetrics().setEnabled(true);
+                    cmd.cli.println("Metrics on");
+                    return;
+                case "off":
+                    commandLine.getMetrics().setEnabled(false);
+                    cmd.cli.println("Metrics off");
+                    return;
+                case "reset":
+                    commandLine.resetMetrics();
+                    cmd.cli.println("Metrics reset");
+                    return;
+                default:
+                    cmd.displayHelp = true;
+                    return;
+            }
+        }
+
+        MetricsSnapshot snapshot = commandLine.getMetricsSnapshot();
+        IPrint ps = cmd.cli;
+
+        ps.println("Metrics are " + (snapshot.isEnabled() ? "on" : "off, use 'stats on' to collect them"));
+        StringBuilder counts = new StringBuilder();
+        for (CommandResult result : CommandResult.values())
+            counts.append(counts.length() > 0 ? ", " : "").append(result.name().toLowerCase(Locale.ROOT)).append(' ').append(snapshot.getCount(result));
+        ps.println(counts.toString());
+
+        ps.println(String.format("%-20s %10s %10s %10s %10s %10s", "Phase", "Count", "Mean", "p50", "p99", "Max"));
+        for (Phase phase : Phase.values())
+            ps.println(row(phase.name().toLowerCase(Locale.ROOT), snapshot.getPhase(phase)));
+
+        if (snapshot.getCommands().isEmpty())
+            return;
+
+        ps.println(String.format("%-20s %10s %10s %10s %10s %10s %8s %8s %8s", "Command", "Count", "Mean", "p50", "p99", "Max", "Ok", "Help", "Failed"));
+        for (Map.Entry<String, CommandMetrics.Snapshot> entry : snapshot.getCommands().entrySet()) {
+            CommandMetrics.Snapshot command = entry.getValue();
+            ps.println(String.format("%s %8d %8d %8d", row(entry.getKey(), command.getExecute()), command.getExecuted(), command.getHelpFallbacks(), command.getFailed()));
+        }
+    }
+
+    private static String row(String name, HistogramSnapshot histogram) {
+        return String.format("%-20s %10d %10s %10s %10s %10s", name, histogram.getCount(), time((long) histogram.getMean()), time(histogram.getPercentile(50)), time(histogram.getPercentile(99)), time(histogram.getMax()));
+    }
+
+    /** Formats a duration with a unit suited to its size. */
+    private static String time(long nanos) {
+        if (nanos < 1000)
+            return nanos + "ns";
+        if (nanos < 1000000)
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        if (nanos < 1000000000)
+            return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+        return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+    }
+}
@@ -0,0 +1,427 @@
+package com.github.maxstupo.jannocli;
+
+import java.util.Arrays;
+
+/**
+ * This class splits a line into tokens without copying it. Tokens are recorded as start and end offsets into the original line and exposed as
+ * {@link CharSequence} views, so a {@link String} is only created when one is asked for with {@link #getString(int)}.
+ * <p>
+ * Tokens are separated by spaces or tabs. The following quoting rules apply:
+ * <ul>
+ * <li>Text within double quotes is a single token, <code>\"</code> and <code>\\</code> can be used within them.</li>
+ * <li>Text within single quotes is a single token and is taken literally.</li>
+ * <li>Outside of quotes a backslash escapes a following space, tab, quote, backslash or <code>|</code>. Any other backslash is kept, so paths such
+ * as <code>C:\dir</code> don't need escaping.</li>
+ * <li>Quotes can appear within a token (<code>a"b c"</code> is the token <code>ab c</code>), and <code>""</code> is an empty token.</li>
+ * <li>Outside of quotes <code>|</code> ends the current token and separates the stages of a pipeline, see {@link #pipeCount()}. When tokenized
+ * with {@link #tokenize(CharSequence, boolean) pipes} disabled, <code>|</code> is an ordinary character and <code>\|</code> isn't an escape.</li>
+ * </ul>
+ * Tokens containing quotes or escapes can't be a view of the original line, so they are decoded into a scratch buffer owned by this tokenizer.
+ * <p>
+ * A tokenizer is reused between lines to avoid allocations, so it isn't thread safe, and the views returned by {@link #get(int)} are only valid
+ * until the next call to {@link #tokenize(CharSequence)}.
+ *
+ * @author Maxstupo
+ */
+public final class Tokenizer {
+
+    private CharSequence source;
+    /** The line as a string, created by {@link #line()} if the line isn't one. */
+    private String sourceString;
+
+    /** Pairs of start (inclusive) and end (exclusive) offsets. A negative start (<code>~start</code>) is an offset into the scratch buffer. */
+    private int[] spans = new int[32];
+    private int count;
+
+    private char[] scratch = new char[64];
+    private int scratchLength;
+
+    /** The index of the first token of each pipeline stage after the first. */
+    private int[] pipes = new int[4];
+    private int pipeCount;
+
+    /** The offset within the line of the last token if the line ended within it, -1 if it ended between tokens. */
+    private int openStart;
+
+    /**
+     * Tokenizes the given line, replacing the tokens of the previous line.
+     *
+     * @param line
+     *            the line to tokenize.
+     * @return this tokenizer.
+     */
+    public Tokenizer tokenize(CharSequence line) {
+        return tokenize(line, true);
+    }
+
+    /**
+     * Tokenizes the given line, replacing the tokens of the previous line.
+     *
+     * @param line
+     *            the line to tokenize.
+     * @param pipes
+     *            true if an unquoted <code>|</code> separates pipeline stages, false if it is an ordinary character that can't be escaped, as
+     *            before pipelines existed.
+     * @return this tokenizer.
+     */
+    public Tokenizer tokenize(CharSequence line, boolean pipes) {
+        this.source = line;
+        this.sourceString = (line instanceof String) ? (String) line : null;
+        this.count = 0;
+        this.scratchLength = 0;
+        this.pipeCount = 0;
+        this.openStart = -1;
+
+        final int length = line.length();
+
+        int tokenStart = -1; // Start of the current token within the line, -1 if not within a token.
+        int scratchStart = -1; // Start of the current token within the scratch buffer, -1 if the token is a view of the line.
+        char quote = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else if (c == '\\' && quote == '"' && i + 1 < length && (line.charAt(i + 1) == '"' || line.charAt(i + 1) == '\\')) {
+                    append(line.charAt(++i));
+                } else {
+                    append(c);
+                }
+
+            } else if (c == ' ' || c == '\t' || (c == '|' && pipes)) {
+                if (tokenStart != -1) {
+                    if (scratchStart != -1) {
+                        addScratchToken(scratchStart);
+                    } else {
+                        addToken(tokenStart, i);
+                    }
+                    tokenStart = -1;
+                    scratchStart = -1;
+                }
+                if (c == '|')
+                    addPipe();
+
+            } else {
+                boolean escape = c == '\\' && i + 1 < length && isEscapable(line.charAt(i + 1), pipes);
+
+                if (c == '"' || c == '\'' || escape) {
+                    // The token can't be a view of the line anymore, move what we have so far into the scratch buffer.
+                    if (tokenStart == -1)
+                        tokenStart = i;
+                    if (scratchStart == -1) {
+                        scratchStart = scratchLength;
+                        for (int j = tokenStart; j < i; j++)
+                            append(line.charAt(j));
+                    }
+
+                    if (escape) {
+                        append(line.charAt(++i));
+                    } else {
+                        quote = c;
+                    }
+
+                } else {
+                    if (tokenStart == -1)
+                        tokenStart = i;
+                    if (scratchStart != -1)
+                        append(c);
+                }
+            }
+        }
+
+        if (tokenStart != -1) {
+            if (scratchStart != -1) {
+                addScratchToken(scratchStart);
+            } else {
+                addToken(tokenStart, length);
+            }
+            openStart = tokenStart;
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of tokens.
+     *
+     * @return the number of tokens.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the offset within the line of the last token if the line ended within that token, so more characters would have extended it, or -1
+     * if the line ended between tokens. An unclosed quote counts as being within a token.
+     *
+     * @return the offset of the unfinished last token, or -1.
+     */
+    public int openTokenStart() {
+        return openStart;
+    }
+
+    /**
+     * Returns the number of unquoted <code>|</code> characters, which split the tokens into one more pipeline stage than this.
+     *
+     * @return the number of pipes.
+     */
+    public int pipeCount() {
+        return pipeCount;
+    }
+
+    /**
+     * Returns the index of the first token after the given pipe. The stage after the pipe ends at the next pipe or the last token, and is empty if
+     * that is the same index.
+     *
+     * @param index
+     *            the index of the pipe.
+     * @return the index of the first token after the pipe.
+     */
+    public int pipe(int index) {
+        return pipes[index];
+    }
+
+    /**
+     * Returns the length of the token at the given index.
+     *
+     * @param index
+     *            the index of the token.
+     * @return the length of the token.
+     */
+    public int length(int index) {
+        return spans[index * 2 + 1] - start(index);
+    }
+
+    /**
+     * Returns the character at the given position of the token at the given index.
+     *
+     * @param index
+     *            the index of the token.
+     * @param position
+     *            the position within the token.
+     * @return the character at the given position of the token.
+     */
+    public char charAt(int index, int position) {
+        int start = spans[index * 2];
+        return (start < 0) ? scratch[~start + position] : source.charAt(start + position);
+    }
+
+    /**
+     * Returns true if the token at the given index is equal to the given string.
+     *
+     * @param index
+     *            the index of the token.
+     * @param str
+     *            the string to compare.
+     * @return true if the token is equal to the given string.
+     */
+    public boolean equals(int index, String str) {
+        int length = length(index);
+        if (length != str.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (charAt(index, i) != str.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a view of the token at the given index. The view is only valid until this tokenizer is used again.
+     *
+     * @param index
+     *            the index of the token.
+     * @return a view of the token.
+     */
+    public CharSequence get(int index) {
+        int start = spans[index * 2];
+        int end = spans[index * 2 + 1];
+        if (start < 0)
+            return new Span(new ScratchSequence(scratch), ~start, end);
+        return new Span(source, start, end);
+    }
+
+    /**
+     * Returns the token at the given index as a new string.
+     *
+     * @param index
+     *            the index of the token.
+     * @return the token as a string.
+     */
+    public String getString(int index) {
+        int start = spans[index * 2];
+        int end = spans[index * 2 + 1];
+        if (start < 0)
+            return new String(scratch, ~start, end - ~start);
+        if (source instanceof String)
+            return ((String) source).substring(start, end);
+        return source.subSequence(start, end).toString();
+    }
+
+    /**
+     * Returns the tokens between the given indices as new strings.
+     *
+     * @param from
+     *            the index of the first token, inclusive.
+     * @param to
+     *            the index of the last token, exclusive.
+     * @return an array of the tokens.
+     */
+    public String[] toArray(int from, int to) {
+        String[] arr = new String[to - from];
+        for (int i = from; i < to; i++)
+            arr[i - from] = getString(i);
+        return arr;
+    }
+
+    /**
+     * Returns the line being tokenized as a {@link String}, copying it once if it is another kind of {@link CharSequence} (such as the reused line
+     * buffer of a {@link com.github.maxstupo.jannocli.cli.LineDecoder}). Unlike the line and the scratch buffer, the returned string stays valid
+     * after this tokenizer is reused, and views of the line have the same offsets within it.
+     */
+    String line() {
+        if (sourceString == null)
+            sourceString = source.toString();
+        return sourceString;
+    }
+
+    /**
+     * Returns true if the token at the given index is a view of the line rather than of the scratch buffer.
+     */
+    boolean isView(int index) {
+        return spans[index * 2] >= 0;
+    }
+
+    /**
+     * Returns the value mapped to the token at the given index, without creating a string for the token.
+     */
+    <T> T lookup(KeywordIndex<T> index, int i) {
+        int start = spans[i * 2];
+        int end = spans[i * 2 + 1];
+        if (start < 0)
+            return index.get(new ScratchSequence(scratch), ~start, end);
+        return index.get(source, start, end);
+    }
+
+    /**
+     * Returns the start offset of the token at the given index, within the line or the scratch buffer.
+     */
+    int start(int index) {
+        int start = spans[index * 2];
+        return (start < 0) ? ~start : start;
+    }
+
+    /**
+     * Returns the end offset of the token at the given index, within the line or the scratch buffer.
+     */
+    int end(int index) {
+        return spans[index * 2 + 1];
+    }
+
+    private void addToken(int start, int end) {
+        ensureSpans();
+        spans[count * 2] = start;
+        spans[count * 2 + 1] = end;
+        count++;
+    }
+
+    private void addScratchToken(int scratchStart) {
+        ensureSpans();
+        spans[count * 2] = ~scratchStart;
+        spans[count * 2 + 1] = scratchLength;
+        count++;
+    }
+
+    private void addPipe() {
+        if (pipeCount == pipes.length)
+            pipes = Arrays.copyOf(pipes, pipes.length * 2);
+        pipes[pipeCount++] = count;
+    }
+
+    private void ensureSpans() {
+        if (count * 2 + 2 > spans.length)
+            spans = Arrays.copyOf(spans, spans.length * 2);
+    }
+
+    private void append(char c) {
+        if (scratchLength == scratch.length)
+            scratch = Arrays.copyOf(scratch, scratch.length * 2);
+        scratch[scratchLength++] = c;
+    }
+
+    private static boolean isEscapable(char c, boolean pipes) {
+        return c == ' ' || c == '\t' || c == '"' || c == '\'' || c == '\\' || (c == '|' && pipes);
+    }
+
+    /** A {@link CharSequence} over the scratch buffer, offsets are relative to the start of the buffer. */
+    private static final class ScratchSequence implements CharSequence {
+
+        private final char[] chars;
+
+        ScratchSequence(char[] chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int length() {
+            return chars.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new Span(this, start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars);
+        }
+    }
+
+    /** A view of part of another {@link CharSequence}. */
+    private static final class Span implements CharSequence {
+
+        private final CharSequence seq;
+        private final int start;
+        private final int end;
+
+        Span(CharSequence seq, int start, int end) {
+            this.seq = seq;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length())
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + length());
+            return seq.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end)
+                throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length());
+            return new Span(seq, this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(length());
+            for (int i = start; i < end; i++)
+                sb.append(seq.charAt(i));
+            return sb.toString();
+        }
+    }
+}
@@ -1,20 +1,20 @@
-package com.github.maxstupo.jannocli.annotation;
-
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
-
-/**
- * This annotation allows for parameters to have formal names.
- * 
- * @author Maxstupo
- */
-@Target(ElementType.METHOD)
-@Retention(RetentionPolicy.RUNTIME)
-public @interface ParamAliases {
-
-    /** An array of parameter names in a sequential order. */
-    String[] value();
-
-}
+package com.github.maxstupo.jannocli.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation allows for parameters to have formal names.
+ * 
+ * @author Maxstupo
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ParamAliases {
+
+    /** An array of parameter names in a sequential order. */
+    String[] value();
+
+}
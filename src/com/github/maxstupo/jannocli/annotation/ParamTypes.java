@@ -1,22 +1,23 @@
-package com.github.maxstupo.jannocli.annotation;
-
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
-
-/**
- * This annotation allows for parameters to have defined types.
- * 
- * @author Maxstupo
- */
-@Target(ElementType.METHOD)
-@Retention(RetentionPolicy.RUNTIME)
-public @interface ParamTypes {
-
-    /**
-     * An array of parameter types in a sequential order. (Supported types are {@link Integer}, {@link Float}, {@link Long}, {@link Boolean},
-     * {@link String} and enums)
-     */
-    Class<?>[] value();
-}
+package com.github.maxstupo.jannocli.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation allows for parameters to have defined types.
+ * 
+ * @author Maxstupo
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ParamTypes {
+
+    /**
+     * An array of parameter types in a sequential order. (Supported types are {@link Integer}, {@link Long}, {@link Short}, {@link Byte},
+     * {@link Float}, {@link Double}, {@link Character}, {@link Boolean}, {@link String}, enums and any type
+     * with a {@link com.github.maxstupo.jannocli.convert.IParamConverter IParamConverter})
+     */
+    Class<?>[] value();
+}
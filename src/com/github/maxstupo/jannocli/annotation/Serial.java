@@ -0,0 +1,19 @@
+package com.github.maxstupo.jannocli.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation marks a command that must not run alongside other commands. When a script is run in parallel, every line before a serial command
+ * finishes before it runs, and no line after it starts until it has finished.
+ * 
+ * @author Maxstupo
+ * @see com.github.maxstupo.jannocli.ScriptRunner#setParallelism(int)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Serial {
+
+}
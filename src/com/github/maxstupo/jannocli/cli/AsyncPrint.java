@@ -0,0 +1,263 @@
+package com.github.maxstupo.jannocli.cli;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class hands output to a background thread that writes it to another {@link IPrint}, so commands don't wait on a slow console or file. Output
+ * is passed through a bounded queue; once it is full, printing waits for the writer to catch up rather than using more memory.
+ * <p>
+ * The writer thread takes all queued output at once, writes it and flushes the wrapped output when the queue is empty. {@link #awaitWritten()} waits
+ * until everything printed before it has been written and flushed. An exception thrown by the wrapped output is kept for {@link #getError()} and the
+ * writer carries on with the next print; if the writer thread stops anyway, anything printed afterwards is dropped instead of waiting for it. This
+ * class is thread safe.
+ *
+ * @author Maxstupo
+ */
+public class AsyncPrint implements IPrint, Closeable {
+
+    /** How long a print waits for room in the queue before checking that the writer thread is still running. */
+    private static final long POLL_MILLIS = 50;
+
+    private final IPrint out;
+    private final BlockingQueue<Entry> queue;
+    private final Thread writer;
+
+    private final Object lock = new Object();
+    // Guarded by the lock.
+    private long queued;
+    private long written;
+    private int putting;
+    private boolean closed;
+    private boolean stopped;
+    private RuntimeException error;
+
+    /**
+     * Create a new {@link AsyncPrint} with room for 1024 queued prints.
+     *
+     * @param out
+     *            the output to write to.
+     */
+    public AsyncPrint(IPrint out) {
+        this(out, 1024);
+    }
+
+    /**
+     * Create a new {@link AsyncPrint}.
+     *
+     * @param out
+     *            the output to write to.
+     * @param capacity
+     *            the number of prints that can be queued before printing waits.
+     */
+    public AsyncPrint(IPrint out, int capacity) {
+        this.out = out;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.writer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                write();
+            }
+        }, "JAnnoCli-print");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void println(String line) {
+        enqueue(new Entry(line, true));
+    }
+
+    @Override
+    public void print(String line) {
+        enqueue(new Entry(line, false));
+    }
+
+    private void enqueue(Entry entry) {
+        synchronized (lock) {
+            if (closed || stopped)
+                return;
+            queued++;
+            putting++;
+        }
+        offer(entry);
+    }
+
+    /**
+     * Adds an entry counted by {@link #queued} and {@link #putting} to the queue, waiting for room while the writer thread is running. An entry
+     * that can't be added is counted as written, so {@link #awaitWritten()} doesn't wait for it.
+     */
+    private void offer(Entry entry) {
+        boolean added = false;
+        try {
+            while (!added && writer.isAlive())
+                added = queue.offer(entry, POLL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (lock) {
+            putting--;
+            if (!added)
+                written++;
+            lock.notifyAll();
+        }
+    }
+
+    private void write() {
+        List<Entry> batch = new ArrayList<>();
+        boolean closing = false;
+
+        try {
+            while (true) {
+                if (closing) {
+                    // Prints that passed the closed check before close() may still be adding to the queue, write them before stopping.
+                    synchronized (lock) {
+                        if (putting == 0 && queue.isEmpty())
+                            break;
+                    }
+                    Entry entry = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (entry == null)
+                        continue;
+                    batch.add(entry);
+                } else {
+                    batch.add(queue.take());
+                }
+                queue.drainTo(batch);
+
+                for (Entry entry : batch) {
+                    if (entry == Entry.CLOSE) {
+                        closing = true;
+                    } else {
+                        write(entry);
+                    }
+                }
+
+                if (queue.isEmpty())
+                    flushOut();
+                entryDone(batch.size());
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Stopped.
+        } finally {
+            synchronized (lock) {
+                stopped = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        try {
+            if (entry.newLine) {
+                out.println(entry.text);
+            } else {
+                out.print(entry.text);
+            }
+        } catch (RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    private void flushOut() {
+        try {
+            out.flush();
+        } catch (RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    private void failed(RuntimeException e) {
+        synchronized (lock) {
+            if (error == null)
+                error = e;
+        }
+    }
+
+    private void entryDone(int count) {
+        synchronized (lock) {
+            written += count;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Does nothing, the writer thread flushes the wrapped output whenever it has written everything queued. This keeps the command-line from waiting
+     * on the wrapped output after each command, use {@link #awaitWritten()} to wait for it.
+     */
+    @Override
+    public void flush() {
+
+    }
+
+    /**
+     * Returns the first exception thrown by the wrapped output while writing or flushing. The print that threw is lost, later prints are still
+     * written.
+     *
+     * @return the first exception thrown by the wrapped output, or null if there hasn't been one.
+     */
+    public RuntimeException getError() {
+        synchronized (lock) {
+            return error;
+        }
+    }
+
+    /**
+     * Waits until everything printed before this call has been written and the wrapped output flushed, or the writer thread has stopped.
+     */
+    public void awaitWritten() {
+        synchronized (lock) {
+            long target = queued;
+            while (written < target && !stopped) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes everything already printed and stops the writer thread. Anything printed afterwards is ignored.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed)
+                return;
+            closed = true;
+            queued++;
+            putting++;
+        }
+        offer(Entry.CLOSE);
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** A queued print. */
+    private static final class Entry {
+
+        static final Entry CLOSE = new Entry(null, false);
+
+        final String text;
+        final boolean newLine;
+
+        Entry(String text, boolean newLine) {
+            this.text = text;
+            this.newLine = newLine;
+        }
+    }
+}
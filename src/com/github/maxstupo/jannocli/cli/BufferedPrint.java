@@ -0,0 +1,117 @@
+package com.github.maxstupo.jannocli.cli;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * This class buffers output in memory and writes it to a {@link Writer} in one call when {@link #flush() flushed}, or once the buffer reaches a
+ * size threshold. The command-line flushes its output after each command, so a command printing many lines costs a single write.
+ * <p>
+ * Errors writing to the writer are recorded rather than thrown, see {@link #checkError()}. This class is thread safe.
+ *
+ * @author Maxstupo
+ */
+public class BufferedPrint implements IPrint {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private final int flushThreshold;
+    private final StringBuilder buffer;
+
+    private boolean error;
+
+    /**
+     * Create a new {@link BufferedPrint} writing to {@link System#out}.
+     */
+    public BufferedPrint() {
+        this(new OutputStreamWriter(System.out));
+    }
+
+    /**
+     * Create a new {@link BufferedPrint} that flushes once 8192 characters are buffered.
+     *
+     * @param out
+     *            the writer to write to.
+     */
+    public BufferedPrint(Writer out) {
+        this(out, 8192);
+    }
+
+    /**
+     * Create a new {@link BufferedPrint}.
+     *
+     * @param out
+     *            the writer to write to.
+     * @param flushThreshold
+     *            the number of buffered characters that causes a flush.
+     */
+    public BufferedPrint(Writer out, int flushThreshold) {
+        this.out = out;
+        this.flushThreshold = flushThreshold;
+        this.buffer = new StringBuilder(Math.min(flushThreshold, 8192) + 128);
+    }
+
+    @Override
+    public void println(String line) {
+        println((CharSequence) line);
+    }
+
+    @Override
+    public void print(String line) {
+        print((CharSequence) line);
+    }
+
+    @Override
+    public synchronized void println(CharSequence text) {
+        buffer.append(text).append(LINE_SEPARATOR);
+        flushIfFull();
+    }
+
+    @Override
+    public synchronized void print(CharSequence text) {
+        buffer.append(text);
+        flushIfFull();
+    }
+
+    @Override
+    public synchronized IPrint append(CharSequence text, int start, int end) {
+        buffer.append(text, start, end);
+        flushIfFull();
+        return this;
+    }
+
+    @Override
+    public synchronized IPrint append(char c) {
+        buffer.append(c);
+        flushIfFull();
+        return this;
+    }
+
+    private void flushIfFull() {
+        if (buffer.length() >= flushThreshold)
+            flush();
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            if (buffer.length() > 0)
+                out.append(buffer);
+            out.flush();
+        } catch (IOException e) {
+            error = true;
+        }
+        buffer.setLength(0);
+    }
+
+    /**
+     * Returns true if writing to the writer has failed. Output buffered when the error happened is lost.
+     *
+     * @return true if writing has failed.
+     */
+    public synchronized boolean checkError() {
+        return error;
+    }
+}
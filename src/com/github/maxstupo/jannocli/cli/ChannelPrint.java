@@ -0,0 +1,156 @@
+package com.github.maxstupo.jannocli.cli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class encodes output straight into a reusable {@link ByteBuffer} and writes it to a {@link WritableByteChannel} when the buffer is full or
+ * when {@link #flush() flushed}. No intermediate strings or byte arrays are created.
+ * <p>
+ * For charsets that encode ASCII as single bytes, ASCII characters are stored without going through a {@link CharsetEncoder}. Unmappable
+ * characters are replaced. A surrogate pair split across two calls can't be encoded and is replaced.
+ * <p>
+ * The channel must be in blocking mode. Errors writing to the channel are recorded rather than thrown, see {@link #checkError()}. This class is
+ * thread safe.
+ *
+ * @author Maxstupo
+ */
+public class ChannelPrint implements IPrint {
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final boolean asciiCompatible;
+    private final ByteBuffer buffer;
+
+    private boolean error;
+
+    /**
+     * Create a new {@link ChannelPrint} using UTF-8 and an 8 KiB buffer.
+     *
+     * @param channel
+     *            the channel to write to.
+     */
+    public ChannelPrint(WritableByteChannel channel) {
+        this(channel, StandardCharsets.UTF_8, 8192);
+    }
+
+    /**
+     * Create a new {@link ChannelPrint}.
+     *
+     * @param channel
+     *            the channel to write to.
+     * @param charset
+     *            the charset to encode output with.
+     * @param bufferSize
+     *            the size of the buffer in bytes.
+     */
+    public ChannelPrint(WritableByteChannel channel, Charset charset, int bufferSize) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1);
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 16));
+    }
+
+    @Override
+    public void println(String line) {
+        println((CharSequence) line);
+    }
+
+    @Override
+    public void print(String line) {
+        print((CharSequence) line);
+    }
+
+    @Override
+    public synchronized void println(CharSequence text) {
+        encode(text, 0, text.length());
+        put((byte) '\n');
+    }
+
+    @Override
+    public synchronized void print(CharSequence text) {
+        encode(text, 0, text.length());
+    }
+
+    @Override
+    public synchronized IPrint append(CharSequence text, int start, int end) {
+        encode(text, start, end);
+        return this;
+    }
+
+    @Override
+    public synchronized IPrint append(char c) {
+        if (asciiCompatible && c < 0x80) {
+            put((byte) c);
+        } else {
+            encode(String.valueOf(c), 0, 1);
+        }
+        return this;
+    }
+
+    private void encode(CharSequence text, int start, int end) {
+        int i = start;
+
+        if (asciiCompatible) {
+            for (; i < end; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80)
+                    break;
+                put((byte) c);
+            }
+            if (i == end)
+                return;
+        }
+
+        CharBuffer in = CharBuffer.wrap(text, i, end);
+        while (true) {
+            CoderResult result = encoder.encode(in, buffer, true);
+            if (!result.isOverflow())
+                break;
+            drain();
+        }
+        while (encoder.flush(buffer).isOverflow())
+            drain();
+        encoder.reset();
+    }
+
+    private void put(byte b) {
+        if (!buffer.hasRemaining())
+            drain();
+        buffer.put(b);
+    }
+
+    /** Writes the buffer to the channel, the buffer is emptied even if writing fails. */
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            error = true;
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (buffer.position() > 0)
+            drain();
+    }
+
+    /**
+     * Returns true if writing to the channel has failed. Output buffered when the error happened is lost.
+     *
+     * @return true if writing has failed.
+     */
+    public synchronized boolean checkError() {
+        return error;
+    }
+}
@@ -1,120 +1,411 @@
-package com.github.maxstupo.jannocli.cli;
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-
-/**
- * This abstract class simplifies listening from an {@link InputStream}. This is done by calling {@link #processInput(IPrint, String)} whenever a line
- * is printed to the stream.
- * 
- * @author Maxstupo
- */
-public abstract class Cli implements Runnable {
-
-    private final InputStream is;
-    private Thread thread;
-    private boolean isRunning = false;
-
-    // TODO: Replace with OutputStream.
-    @SuppressWarnings("javadoc")
-    protected final IPrint ps;
-
-    /**
-     * Create a new {@link Cli} object using {@link System#in} and {@link SystemPrint}.
-     */
-    public Cli() {
-        this(System.in, new SystemPrint());
-    }
-
-    /**
-     * Create a new {@link Cli}.
-     * 
-     * @param is
-     *            the input stream to listen.
-     * @param ps
-     *            an output implementation.
-     */
-    public Cli(InputStream is, IPrint ps) {
-        this.is = is;
-        this.ps = ps;
-    }
-
-    @Override
-    public void run() {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is))) {
-
-            while (isRunning)
-                processInput(ps, br.readLine());
-
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Called whenever input is read.
-     * 
-     * @param ps
-     *            the output implementation.
-     * @param line
-     *            the input read.
-     */
-    protected abstract void processInput(IPrint ps, String line);
-
-    /**
-     * Start the thread to listen for stream input.
-     * 
-     * @return true if the thread started.
-     */
-    public boolean start() {
-        return start(null);
-    }
-
-    /**
-     * Start the thread to listen for stream input.
-     * 
-     * @param threadName
-     *            the name of thread, or null to assign a name.
-     * @return true if the thread started.
-     */
-    public boolean start(String threadName) {
-        if (thread != null || isRunning)
-            return false;
-
-        isRunning = true;
-
-        thread = new Thread(this);
-        if (threadName != null)
-            thread.setName(threadName);
-        thread.start();
-        return true;
-    }
-
-    /**
-     * Stops the thread listening for input.
-     * 
-     * @return true if the thread was stopped.
-     */
-    public boolean stop() {
-        if (thread == null || !isRunning)
-            return false;
-
-        isRunning = false;
-
-        try {
-            thread.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-
-        thread = null;
-        return true;
-    }
-
-    @SuppressWarnings("javadoc")
-    public IPrint getOut() {
-        return ps;
-    }
-}
+package com.github.maxstupo.jannocli.cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This abstract class simplifies listening from an {@link InputStream} or a {@link ReadableByteChannel}. This is done by calling
+ * {@link #processInput(IPrint, CharSequence)} whenever a line is read.
+ * <p>
+ * Input is read into a reusable buffer and decoded by a {@link LineDecoder}, so no {@link String} is created per line unless
+ * {@link #processInput(IPrint, CharSequence)} isn't overridden. Selectable channels (such as sockets and pipes) are read through a {@link Selector},
+ * which {@link #stop()} wakes. An {@link InputStream} is read by a separate daemon thread that hands what it reads to the listening thread, so
+ * {@link #stop()} never has to interrupt a blocked read and the stream (such as {@link System#in}) stays open, and the listener can be started
+ * again. Reads from any other channel are interrupted by {@link #stop()}, which closes the channel if it is an
+ * {@link java.nio.channels.InterruptibleChannel}, after which the listener can't be started again. At the end of the input the final line is
+ * processed and the thread stops by itself.
+ * <p>
+ * The decoder and buffer are kept from one run of the listener to the next. Lines decoded after {@link #stop()} from input that was already read
+ * are kept instead of processed, and processed first when the listener is started again, so stopping never loses input.
+ *
+ * @author Maxstupo
+ */
+public abstract class Cli implements Runnable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /** How long the listening thread waits for input from a stream before checking if it has been stopped. */
+    private static final long POLL_MILLIS = 50;
+
+    /** The channel listened to, or null if listening to a stream. */
+    private final ReadableByteChannel channel;
+    /** The reader of the stream listened to, or null if listening to a channel. */
+    private final StreamReader stream;
+
+    // Only used by the listening thread, each run continuing where the last one stopped.
+    private final LineDecoder decoder;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /** Lines decoded while stopped, processed once started again. */
+    private final ArrayDeque<String> undelivered = new ArrayDeque<>();
+    private final LineDecoder.Handler handler = new LineDecoder.Handler() {
+
+        @Override
+        public void onLine(CharSequence line) {
+            if (isRunning && undelivered.isEmpty()) {
+                processInput(ps, line);
+            } else {
+                undelivered.add(line.toString());
+            }
+        }
+    };
+
+    private Thread thread;
+    private volatile boolean isRunning = false;
+    private volatile Selector selector;
+
+    // TODO: Replace with OutputStream.
+    @SuppressWarnings("javadoc")
+    protected final IPrint ps;
+
+    /**
+     * Create a new {@link Cli} object using {@link System#in} and {@link SystemPrint}.
+     */
+    public Cli() {
+        this(System.in, new SystemPrint());
+    }
+
+    /**
+     * Create a new {@link Cli}. Input is decoded using the default charset.
+     * <p>
+     * The stream is read by a daemon thread started by the first call to {@link #start()}, which keeps reading the stream until its end, even while
+     * the listener is stopped. The stream is never closed.
+     *
+     * @param is
+     *            the input stream to listen.
+     * @param ps
+     *            an output implementation.
+     */
+    public Cli(InputStream is, IPrint ps) {
+        this.channel = null;
+        this.stream = new StreamReader(is);
+        this.decoder = new LineDecoder(Charset.defaultCharset());
+        this.ps = ps;
+    }
+
+    /**
+     * Create a new {@link Cli}.
+     *
+     * @param channel
+     *            the channel to listen.
+     * @param charset
+     *            the charset of the input.
+     * @param ps
+     *            an output implementation.
+     */
+    public Cli(ReadableByteChannel channel, Charset charset, IPrint ps) {
+        this.channel = channel;
+        this.stream = null;
+        this.decoder = new LineDecoder(charset);
+        this.ps = ps;
+    }
+
+    @Override
+    public void run() {
+        try {
+            // The lines left over when the listener was last stopped.
+            while (isRunning && !undelivered.isEmpty())
+                processInput(ps, undelivered.poll());
+            if (!isRunning)
+                return;
+
+            boolean eof;
+            if (stream != null) {
+                eof = readStream();
+            } else if (channel instanceof SelectableChannel) {
+                eof = readSelectable((SelectableChannel) channel);
+            } else {
+                eof = false;
+                while (isRunning && !eof)
+                    eof = read();
+            }
+
+            if (eof) {
+                buffer.flip();
+                decoder.finish(buffer, handler);
+                buffer.clear();
+            }
+
+        } catch (AsynchronousCloseException e) {
+            // Stopped while reading.
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            isRunning = false;
+        }
+    }
+
+    /**
+     * Reads the given channel through a selector until stopped or the end of input.
+     *
+     * @return true if the end of input was reached.
+     */
+    private boolean readSelectable(SelectableChannel selectable) throws IOException {
+        boolean blocking = selectable.isBlocking();
+
+        try (Selector selector = Selector.open()) {
+            selectable.configureBlocking(false);
+            selectable.register(selector, SelectionKey.OP_READ);
+            this.selector = selector;
+
+            while (isRunning) {
+                selector.select();
+                selector.selectedKeys().clear();
+
+                // Drain what is available, a non-blocking read returns 0 once there is nothing left.
+                int read;
+                while (isRunning && (read = channel.read(buffer)) != 0) {
+                    if (read < 0)
+                        return true;
+                    decode();
+                }
+            }
+            return false;
+
+        } finally {
+            this.selector = null;
+            if (selectable.isOpen())
+                selectable.configureBlocking(blocking);
+        }
+    }
+
+    /**
+     * Reads what the stream reader hands over until stopped or the end of input.
+     *
+     * @return true if the end of input was reached.
+     */
+    private boolean readStream() throws IOException {
+        try {
+            while (isRunning) {
+                int read = stream.read(buffer, POLL_MILLIS);
+                if (read < 0)
+                    return true;
+                if (read > 0)
+                    decode();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Reads once from the channel, blocking until input is available.
+     *
+     * @return true if the end of input was reached.
+     */
+    private boolean read() throws IOException {
+        if (channel.read(buffer) < 0)
+            return true;
+        decode();
+        return false;
+    }
+
+    private void decode() {
+        buffer.flip();
+        decoder.decode(buffer, handler);
+        buffer.compact();
+    }
+
+    /**
+     * Called whenever input is read.
+     *
+     * @param ps
+     *            the output implementation.
+     * @param line
+     *            the input read.
+     */
+    protected abstract void processInput(IPrint ps, String line);
+
+    /**
+     * Called whenever a line is read. The given line is only valid during this call. By default this creates a {@link String} and calls
+     * {@link #processInput(IPrint, String)}, override it to process lines without creating a string.
+     *
+     * @param ps
+     *            the output implementation.
+     * @param line
+     *            the line read, without its terminator.
+     */
+    protected void processInput(IPrint ps, CharSequence line) {
+        processInput(ps, line.toString());
+    }
+
+    /**
+     * Start the thread to listen for stream input.
+     *
+     * @return true if the thread started.
+     */
+    public boolean start() {
+        return start(null);
+    }
+
+    /**
+     * Start the thread to listen for stream input.
+     *
+     * @param threadName
+     *            the name of thread, or null to assign a name.
+     * @return true if the thread started, false if it is already running or the input has ended or been closed and every line of it has been
+     *         processed.
+     */
+    public synchronized boolean start(String threadName) {
+        if (thread != null && thread.isAlive())
+            return false;
+        if (undelivered.isEmpty() && ((stream != null) ? stream.isFinished() : !channel.isOpen()))
+            return false;
+
+        if (stream != null)
+            stream.start();
+        isRunning = true;
+
+        thread = new Thread(this);
+        if (threadName != null)
+            thread.setName(threadName);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Stops the thread listening for input, waiting for the line being processed (if any) to finish. Lines already read but not yet processed are
+     * kept for when the listener is started again. A read in progress is woken if the input is a
+     * selectable channel, and a stream is checked for being stopped between reads, otherwise the thread is interrupted.
+     *
+     * @return true if the thread was stopped, false if it wasn't running.
+     */
+    public synchronized boolean stop() {
+        if (thread == null)
+            return false;
+
+        boolean wasRunning = isRunning;
+        isRunning = false;
+
+        if (thread != Thread.currentThread()) {
+            Selector selector = this.selector;
+            if (selector != null) {
+                selector.wakeup();
+            } else if (stream == null && !(channel instanceof SelectableChannel)) {
+                thread.interrupt();
+            }
+
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        thread = null;
+        return wasRunning;
+    }
+
+    /**
+     * Returns true if the thread is listening for input.
+     *
+     * @return true if the thread is listening for input.
+     */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @SuppressWarnings("javadoc")
+    public IPrint getOut() {
+        return ps;
+    }
+
+    /**
+     * Reads a stream on its own thread, handing what is read to the listening thread through a small queue. Blocking reads of a stream can't be
+     * interrupted without closing it, so the reading thread outlives a stopped listener and its reads are taken by the next one.
+     */
+    private static final class StreamReader implements Runnable {
+
+        /** Marks the end of the stream in the queue. */
+        private static final byte[] END = new byte[0];
+
+        private final InputStream is;
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(16);
+
+        private Thread thread;
+        /** The part of the last chunk taken that didn't fit in the buffer. */
+        private ByteBuffer pending;
+        private volatile boolean finished;
+
+        StreamReader(InputStream is) {
+            this.is = is;
+        }
+
+        synchronized void start() {
+            if (thread != null)
+                return;
+            thread = new Thread(this, "Cli input reader");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Returns true if the end of the stream has been taken by a listener.
+         */
+        boolean isFinished() {
+            return finished;
+        }
+
+        /**
+         * Moves input into the given buffer, waiting up to the given time for some to be read.
+         *
+         * @return the number of bytes moved, or -1 at the end of the stream.
+         */
+        int read(ByteBuffer buffer, long timeoutMillis) throws InterruptedException {
+            if (finished)
+                return -1;
+
+            if (pending == null || !pending.hasRemaining()) {
+                byte[] chunk = chunks.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+                if (chunk == null)
+                    return 0;
+                if (chunk == END) {
+                    finished = true;
+                    return -1;
+                }
+                pending = ByteBuffer.wrap(chunk);
+            }
+
+            int count = Math.min(pending.remaining(), buffer.remaining());
+            int limit = pending.limit();
+            pending.limit(pending.position() + count);
+            buffer.put(pending);
+            pending.limit(limit);
+            return count;
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try {
+                int read;
+                while ((read = is.read(buffer)) >= 0) {
+                    if (read > 0)
+                        chunks.put(Arrays.copyOf(buffer, read));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                chunks.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
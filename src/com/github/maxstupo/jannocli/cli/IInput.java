@@ -0,0 +1,26 @@
+package com.github.maxstupo.jannocli.cli;
+
+/**
+ * A stream of lines given to a command, such as the output of the previous command of a pipeline.
+ * 
+ * @author Maxstupo
+ */
+public interface IInput {
+
+    /** An input without any lines. */
+    IInput EMPTY = new IInput() {
+
+        @Override
+        public String readLine() {
+            return null;
+        }
+    };
+
+    /**
+     * Returns the next line, waiting for it if it hasn't been written yet.
+     * 
+     * @return the next line without its terminator, or null at the end of the input.
+     */
+    String readLine();
+
+}
@@ -1,25 +1,97 @@
-package com.github.maxstupo.jannocli.cli;
-
-/**
- * This interface allows for a custom implementation of {@link #print(String)} and {@link #println(String)} used by all commands and their logic.
- * 
- * @author Maxstupo
- */
-public interface IPrint {
-
-    /**
-     * Prints the given string and goes to the next line.
-     * 
-     * @param line
-     *            the string to print.
-     */
-    void println(String line);
-
-    /**
-     * Prints the given string.
-     * 
-     * @param line
-     */
-    void print(String line);
-
-}
+package com.github.maxstupo.jannocli.cli;
+
+/**
+ * This interface allows for a custom implementation of {@link #print(String)} and {@link #println(String)} used by all commands and their logic.
+ * <p>
+ * Implementations may buffer output, in which case it is written when {@link #flush()} is called.
+ * 
+ * @author Maxstupo
+ */
+public interface IPrint {
+
+    /**
+     * Prints the given string and goes to the next line.
+     * 
+     * @param line
+     *            the string to print.
+     */
+    void println(String line);
+
+    /**
+     * Prints the given string.
+     * 
+     * @param line
+     */
+    void print(String line);
+
+    /**
+     * Prints the given text and goes to the next line. The text is only used during this call, so it can be a reused buffer. By default this creates
+     * a string and calls {@link #println(String)}, implementations should override it to avoid that.
+     * 
+     * @param text
+     *            the text to print.
+     */
+    default void println(CharSequence text) {
+        println(text.toString());
+    }
+
+    /**
+     * Prints the given text. The text is only used during this call, so it can be a reused buffer. By default this creates a string and calls
+     * {@link #print(String)}, implementations should override it to avoid that.
+     * 
+     * @param text
+     *            the text to print.
+     */
+    default void print(CharSequence text) {
+        print(text.toString());
+    }
+
+    /**
+     * Prints the characters between <code>start</code> (inclusive) and <code>end</code> (exclusive) of the given text.
+     * 
+     * @param text
+     *            the text to print.
+     * @param start
+     *            the index of the first character.
+     * @param end
+     *            the index after the last character.
+     * @return this output.
+     */
+    default IPrint append(CharSequence text, int start, int end) {
+        print(text.subSequence(start, end));
+        return this;
+    }
+
+    /**
+     * Prints the given text.
+     * 
+     * @param text
+     *            the text to print.
+     * @return this output.
+     */
+    default IPrint append(CharSequence text) {
+        print(text);
+        return this;
+    }
+
+    /**
+     * Prints the given character.
+     * 
+     * @param c
+     *            the character to print.
+     * @return this output.
+     */
+    default IPrint append(char c) {
+        print(String.valueOf(c));
+        return this;
+    }
+
+    /**
+     * Writes any buffered output. The command-line calls this after each command, so buffering implementations don't hold output back from the user
+     * between commands. Does nothing by default.
+     */
+    default void flush() {
+
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.github.maxstupo.jannocli.cli;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class decodes bytes into lines. Lines are terminated by <code>\n</code>, <code>\r</code> or <code>\r\n</code>, the same as
+ * {@link java.io.BufferedReader#readLine()}, and are given to a {@link Handler} as a view of a reusable buffer, so no {@link String} is created
+ * unless the handler asks for one.
+ * <p>
+ * For charsets that encode ASCII as single bytes (such as UTF-8 and ISO-8859-1) runs of ASCII bytes are copied straight into the line buffer
+ * without going through a {@link CharsetDecoder}. Malformed input is replaced rather than reported.
+ * <p>
+ * This class isn't thread safe.
+ *
+ * @author Maxstupo
+ */
+public final class LineDecoder {
+
+    /** Receives the lines of a {@link LineDecoder}. */
+    public interface Handler {
+
+        /**
+         * Called for each line. The given line is only valid during this call, use {@link CharSequence#toString()} to keep it.
+         *
+         * @param line
+         *            the line, without its terminator.
+         */
+        void onLine(CharSequence line);
+
+        /**
+         * Called instead of {@link #onLine(CharSequence)} for a line longer than the maximum line length. Does nothing by default.
+         */
+        default void onLineTooLong() {
+
+        }
+    }
+
+    private final CharsetDecoder decoder;
+    private final boolean asciiCompatible;
+    private final int maxLineLength;
+
+    private final Line line = new Line();
+    private CharBuffer decoded;
+
+    /** True if the current line is longer than the maximum, the rest of it is discarded. */
+    private boolean tooLong;
+
+    /** True if the last character was <code>\r</code>, so a following <code>\n</code> belongs to the same terminator. */
+    private boolean skipLf;
+
+    /**
+     * Create a new {@link LineDecoder}.
+     *
+     * @param charset
+     *            the charset of the bytes.
+     */
+    public LineDecoder(Charset charset) {
+        this(charset, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a new {@link LineDecoder} that discards lines longer than the given length, so a peer that never ends a line can't exhaust memory.
+     *
+     * @param charset
+     *            the charset of the bytes.
+     * @param maxLineLength
+     *            the maximum number of characters of a line.
+     */
+    public LineDecoder(Charset charset, int maxLineLength) {
+        this.maxLineLength = maxLineLength;
+        this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Decodes the remaining bytes of the given buffer, calling the handler for each completed line. Bytes of an incomplete character are left in
+     * the buffer, so it should be compacted before more bytes are read into it.
+     *
+     * @param in
+     *            the bytes to decode.
+     * @param handler
+     *            the handler to give each line to.
+     */
+    public void decode(ByteBuffer in, Handler handler) {
+        if (asciiCompatible) {
+            int pos = in.position();
+            int limit = in.limit();
+
+            // Stop at the first byte that isn't ASCII, the decoder deals with the rest.
+            if (in.hasArray()) {
+                byte[] bytes = in.array();
+                int offset = in.arrayOffset();
+                for (byte b; pos < limit && (b = bytes[offset + pos]) >= 0; pos++)
+                    accept((char) b, handler);
+            } else {
+                for (byte b; pos < limit && (b = in.get(pos)) >= 0; pos++)
+                    accept((char) b, handler);
+            }
+            in.position(pos);
+
+            if (!in.hasRemaining())
+                return;
+        }
+        decode(in, handler, false);
+    }
+
+    /**
+     * Decodes the remaining bytes of the given buffer as the end of the input, calling the handler for each line including a final line without a
+     * terminator. This decoder can then be used for new input.
+     *
+     * @param in
+     *            the last bytes to decode.
+     * @param handler
+     *            the handler to give each line to.
+     */
+    public void finish(ByteBuffer in, Handler handler) {
+        decode(in, handler, true);
+
+        CharBuffer decoded = decoded();
+        decoded.clear();
+        decoder.flush(decoded);
+        decoded.flip();
+        while (decoded.hasRemaining())
+            accept(decoded.get(), handler);
+
+        if (line.length > 0 || tooLong)
+            endLine(handler);
+
+        skipLf = false;
+        decoder.reset();
+    }
+
+    private void decode(ByteBuffer in, Handler handler, boolean endOfInput) {
+        CharBuffer decoded = decoded();
+        CoderResult result;
+        do {
+            decoded.clear();
+            result = decoder.decode(in, decoded, endOfInput);
+            decoded.flip();
+
+            while (decoded.hasRemaining())
+                accept(decoded.get(), handler);
+        } while (result.isOverflow());
+    }
+
+    private void accept(char c, Handler handler) {
+        if (skipLf) {
+            skipLf = false;
+            if (c == '\n')
+                return;
+        }
+
+        if (c == '\n' || c == '\r') {
+            skipLf = c == '\r';
+            endLine(handler);
+        } else if (line.length < maxLineLength) {
+            line.append(c);
+        } else {
+            tooLong = true;
+        }
+    }
+
+    private void endLine(Handler handler) {
+        if (tooLong) {
+            handler.onLineTooLong();
+        } else {
+            handler.onLine(line);
+        }
+        line.length = 0;
+        tooLong = false;
+    }
+
+    /** Returns the buffer for the output of the charset decoder, created when first needed as ASCII input never uses it. */
+    private CharBuffer decoded() {
+        if (decoded == null)
+            decoded = CharBuffer.allocate(1024);
+        return decoded;
+    }
+
+    /** The line being decoded, a view of a buffer reused for every line. */
+    private static final class Line implements CharSequence {
+
+        private char[] chars = new char[128];
+        private int length;
+
+        void append(char c) {
+            if (length == chars.length)
+                chars = Arrays.copyOf(chars, chars.length * 2);
+            chars[length++] = c;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length)
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end)
+                throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
@@ -1,20 +1,25 @@
-package com.github.maxstupo.jannocli.cli;
-
-/**
- * This class is a basic implementation of {@link IPrint} using the standard {@link System#out} stream.
- * 
- * @author Maxstupo
- */
-public class SystemPrint implements IPrint {
-
-    @Override
-    public void println(String msg) {
-        System.out.println(msg);
-    }
-
-    @Override
-    public void print(String msg) {
-        System.out.print(msg);
-    }
-
-}
+package com.github.maxstupo.jannocli.cli;
+
+/**
+ * This class is a basic implementation of {@link IPrint} using the standard {@link System#out} stream.
+ * 
+ * @author Maxstupo
+ */
+public class SystemPrint implements IPrint {
+
+    @Override
+    public void println(String msg) {
+        System.out.println(msg);
+    }
+
+    @Override
+    public void print(String msg) {
+        System.out.print(msg);
+    }
+
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.github.maxstupo.jannocli.convert;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds the {@link IParamConverter converters} registered with a command-line. Converters discovered with {@link ServiceLoader} are
+ * shared by all registries, they are loaded once and cached per type.
+ *
+ * @author Maxstupo
+ */
+public final class ConverterRegistry {
+
+    private static final ClassValue<IParamConverter<?>> discovered = new ClassValue<IParamConverter<?>>() {
+
+        @Override
+        protected IParamConverter<?> computeValue(Class<?> type) {
+            return Discovered.converters.get(type);
+        }
+    };
+
+    private final Map<Class<?>, IParamConverter<?>> converters = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the given converter, replacing any converter registered for the same type. Commands registered before this call keep their current
+     * converters.
+     *
+     * @param converter
+     *            the converter to register.
+     */
+    public void register(IParamConverter<?> converter) {
+        converters.put(converter.getType(), converter);
+    }
+
+    /**
+     * Returns true if no converters have been registered with this registry.
+     *
+     * @return true if no converters have been registered.
+     */
+    public boolean isEmpty() {
+        return converters.isEmpty();
+    }
+
+    /**
+     * Returns the converter registered with this registry for the given type, or null.
+     *
+     * @param type
+     *            the parameter type.
+     * @return the converter registered for the given type, or null.
+     */
+    public IParamConverter<?> getRegistered(Class<?> type) {
+        return converters.get(type);
+    }
+
+    /**
+     * Returns the converter discovered with {@link ServiceLoader} for the given type, or null.
+     *
+     * @param type
+     *            the parameter type.
+     * @return the converter discovered for the given type, or null.
+     */
+    public static IParamConverter<?> getDiscovered(Class<?> type) {
+        return discovered.get(type);
+    }
+
+    /** Lazily loads the converters available through {@link ServiceLoader}. */
+    private static final class Discovered {
+
+        static final Map<Class<?>, IParamConverter<?>> converters = load();
+
+        @SuppressWarnings("rawtypes")
+        private static Map<Class<?>, IParamConverter<?>> load() {
+            Map<Class<?>, IParamConverter<?>> map = new HashMap<>();
+
+            Iterator<IParamConverter> it = ServiceLoader.load(IParamConverter.class, ConverterRegistry.class.getClassLoader()).iterator();
+            while (true) {
+                try {
+                    if (!it.hasNext())
+                        break;
+                    IParamConverter<?> converter = it.next();
+                    if (!map.containsKey(converter.getType()))
+                        map.put(converter.getType(), converter);
+                } catch (ServiceConfigurationError e) {
+                    e.printStackTrace();
+                }
+            }
+            return Collections.unmodifiableMap(map);
+        }
+    }
+}
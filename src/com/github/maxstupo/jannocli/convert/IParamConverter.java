@@ -0,0 +1,35 @@
+package com.github.maxstupo.jannocli.convert;
+
+/**
+ * This interface allows parameters of any type to be declared with {@link com.github.maxstupo.jannocli.annotation.ParamTypes ParamTypes}.
+ * <p>
+ * Converters can be registered with {@link com.github.maxstupo.jannocli.CommandLine#registerConverter(IParamConverter)} or discovered with
+ * {@link java.util.ServiceLoader} by listing them within <code>META-INF/services/com.github.maxstupo.jannocli.convert.IParamConverter</code>. The
+ * converter for each parameter is chosen once when the command is registered.
+ * <p>
+ * Converters are called for every execution of a command, from any thread, so they must be thread safe and should be cheap. Malformed input must be
+ * reported by returning null rather than throwing an exception.
+ *
+ * @author Maxstupo
+ * @param <T>
+ *            the type this converter creates.
+ */
+public interface IParamConverter<T> {
+
+    /**
+     * Returns the parameter type this converter creates.
+     *
+     * @return the parameter type this converter creates.
+     */
+    Class<T> getType();
+
+    /**
+     * Converts the given parameter. The given value is only valid during this call, use {@link CharSequence#toString()} to keep it.
+     *
+     * @param value
+     *            the parameter value.
+     * @return the converted value, or null if the value can't be converted.
+     */
+    T convert(CharSequence value);
+
+}
@@ -0,0 +1,42 @@
+package com.github.maxstupo.jannocli.convert;
+
+import java.util.UUID;
+
+/**
+ * Converts parameters in the standard <code>8-4-4-4-12</code> hexadecimal form into a {@link UUID}, without throwing on malformed input.
+ *
+ * @author Maxstupo
+ */
+public class UuidConverter implements IParamConverter<UUID> {
+
+    @Override
+    public Class<UUID> getType() {
+        return UUID.class;
+    }
+
+    @Override
+    public UUID convert(CharSequence value) {
+        if (value.length() != 36 || value.charAt(8) != '-' || value.charAt(13) != '-' || value.charAt(18) != '-' || value.charAt(23) != '-')
+            return null;
+
+        long msb = 0;
+        long lsb = 0;
+        int digits = 0;
+
+        for (int i = 0; i < 36; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23)
+                continue;
+
+            int digit = Character.digit(value.charAt(i), 16);
+            if (digit < 0 || value.charAt(i) > 'f')
+                return null;
+
+            if (digits++ < 16) {
+                msb = (msb << 4) | digit;
+            } else {
+                lsb = (lsb << 4) | digit;
+            }
+        }
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.maxstupo.jannocli.invoke;
+
+import com.github.maxstupo.jannocli.ExecutedCommand;
+
+/**
+ * This interface represents the call into the command logic (method) of a command. Implementations are created once when a command is registered
+ * and reused for every execution of that command.
+ *
+ * @author Maxstupo
+ * @see Invokers#create(java.lang.reflect.Method)
+ */
+@FunctionalInterface
+public interface ICommandInvoker {
+
+    /**
+     * Invokes the command logic.
+     *
+     * @param owner
+     *            the object that owns the command logic.
+     * @param command
+     *            the executed command given to the command logic.
+     * @throws Exception
+     *             any exception thrown by the command logic, unwrapped.
+     */
+    void invoke(Object owner, ExecutedCommand command) throws Exception;
+
+}
@@ -0,0 +1,161 @@
+package com.github.maxstupo.jannocli.invoke;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import com.github.maxstupo.jannocli.ExecutedCommand;
+
+/**
+ * This class creates {@link ICommandInvoker} objects for command methods.
+ * <p>
+ * The fastest available route is chosen when the command is registered:
+ * <ol>
+ * <li>A class generated by {@link LambdaMetafactory}, turning the method into a direct call that can be inlined.</li>
+ * <li>A {@link MethodHandle}, used when the method is static or the generated class can't access the method.</li>
+ * <li>Plain reflection using {@link Method#invoke(Object, Object...)}, used when neither of the above are available.</li>
+ * </ol>
+ *
+ * @author Maxstupo
+ */
+public final class Invokers {
+
+    private static final MethodType SAM_TYPE = MethodType.methodType(void.class, Object.class, ExecutedCommand.class);
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(ICommandInvoker.class);
+
+    /** MethodHandles.privateLookupIn(Class, Lookup), only available on Java 9 and above. */
+    private static final Method privateLookupIn = findPrivateLookupIn();
+
+    private Invokers() {
+
+    }
+
+    /**
+     * Returns a new invoker for the given method. The method must take a single parameter assignable from {@link ExecutedCommand}.
+     *
+     * @param method
+     *            the command method.
+     * @return a new invoker for the given method.
+     */
+    public static ICommandInvoker create(Method method) {
+        method.setAccessible(true);
+
+        if (!Modifier.isStatic(method.getModifiers())) {
+            ICommandInvoker invoker = createLambda(method);
+            if (invoker != null)
+                return invoker;
+        }
+
+        ICommandInvoker invoker = createMethodHandle(method);
+        if (invoker != null)
+            return invoker;
+
+        return createReflective(method);
+    }
+
+    /**
+     * Returns an invoker that uses {@link Method#invoke(Object, Object...)} to call the given method.
+     *
+     * @param method
+     *            the command method.
+     * @return an invoker that uses reflection to call the given method.
+     */
+    public static ICommandInvoker createReflective(final Method method) {
+        return new ICommandInvoker() {
+
+            @Override
+            public void invoke(Object owner, ExecutedCommand command) throws Exception {
+                try {
+                    method.invoke(owner, command);
+                } catch (InvocationTargetException e) {
+                    throw unwrap(e.getCause());
+                }
+            }
+        };
+    }
+
+    private static ICommandInvoker createLambda(Method method) {
+        Class<?> owner = method.getDeclaringClass();
+
+        try {
+            MethodHandles.Lookup lookup = lookupFor(method);
+            if (lookup == null)
+                return null;
+
+            MethodHandle impl = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "invoke", FACTORY_TYPE, SAM_TYPE, impl, MethodType.methodType(void.class, owner, ExecutedCommand.class));
+
+            return (ICommandInvoker) site.getTarget().invoke();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static ICommandInvoker createMethodHandle(Method method) {
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers()))
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+
+            final MethodHandle target = handle.asType(SAM_TYPE);
+
+            return new ICommandInvoker() {
+
+                @Override
+                public void invoke(Object owner, ExecutedCommand command) throws Exception {
+                    try {
+                        target.invokeExact(owner, command);
+                    } catch (Throwable e) {
+                        throw unwrap(e);
+                    }
+                }
+            };
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a lookup that the generated class can use to call the given method directly, or null if there isn't one.
+     */
+    private static MethodHandles.Lookup lookupFor(Method method) throws Exception {
+        Class<?> owner = method.getDeclaringClass();
+
+        // Java 9+: Define the generated class within the owner, so private methods and other class loaders are supported.
+        if (privateLookupIn != null)
+            return (MethodHandles.Lookup) privateLookupIn.invoke(null, owner, MethodHandles.lookup());
+
+        // Java 8: The generated class is defined within this class, so it can only call public methods that are visible to our class loader.
+        if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(owner.getModifiers()))
+            return null;
+
+        try {
+            if (Class.forName(owner.getName(), false, Invokers.class.getClassLoader()) != owner)
+                return null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        return MethodHandles.lookup();
+    }
+
+    private static Method findPrivateLookupIn() {
+        try {
+            return MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Exception unwrap(Throwable e) {
+        if (e instanceof Exception)
+            return (Exception) e;
+        if (e instanceof Error)
+            throw (Error) e;
+        return new RuntimeException(e);
+    }
+}
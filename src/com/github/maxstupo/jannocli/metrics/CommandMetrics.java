@@ -0,0 +1,130 @@
+package com.github.maxstupo.jannocli.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.maxstupo.jannocli.CommandResult;
+
+/**
+ * The metrics of a single command: how often it was executed, fell back to displaying its help or threw, and how long converting its parameters
+ * and executing it took.
+ *
+ * @author Maxstupo
+ */
+public final class CommandMetrics {
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder helpFallbacks = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private final LatencyHistogram parse = new LatencyHistogram();
+    private final LatencyHistogram execute = new LatencyHistogram();
+
+    /**
+     * Records the time taken to convert the parameters of the command.
+     *
+     * @param nanos
+     *            the duration in nanoseconds.
+     */
+    public void recordParse(long nanos) {
+        parse.record(nanos);
+    }
+
+    /**
+     * Records parameters that couldn't be converted, so help was displayed instead of executing the command.
+     */
+    public void recordInvalidParameters() {
+        helpFallbacks.increment();
+    }
+
+    /**
+     * Records an execution of the command.
+     *
+     * @param nanos
+     *            the duration in nanoseconds.
+     * @param result
+     *            the outcome of the execution.
+     */
+    public void recordExecute(long nanos, CommandResult result) {
+        execute.record(nanos);
+        if (result == CommandResult.FAILED) {
+            failed.increment();
+        } else if (result == CommandResult.HELP) {
+            helpFallbacks.increment();
+        } else {
+            executed.increment();
+        }
+    }
+
+    /**
+     * Returns a copy of these metrics.
+     *
+     * @return a snapshot of these metrics.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(executed.sum(), helpFallbacks.sum(), failed.sum(), parse.snapshot(), execute.snapshot());
+    }
+
+    /**
+     * Removes every recorded value.
+     */
+    public void reset() {
+        executed.reset();
+        helpFallbacks.reset();
+        failed.reset();
+        parse.reset();
+        execute.reset();
+    }
+
+    /** A copy of the metrics of a command. */
+    public static final class Snapshot {
+
+        private final long executed;
+        private final long helpFallbacks;
+        private final long failed;
+        private final HistogramSnapshot parse;
+        private final HistogramSnapshot execute;
+
+        Snapshot(long executed, long helpFallbacks, long failed, HistogramSnapshot parse, HistogramSnapshot execute) {
+            this.executed = executed;
+            this.helpFallbacks = helpFallbacks;
+            this.failed = failed;
+            this.parse = parse;
+            this.execute = execute;
+        }
+
+        /**
+         * Returns the number of times the command executed successfully.
+         *
+         * @return the number of successful executions.
+         */
+        public long getExecuted() {
+            return executed;
+        }
+
+        /**
+         * Returns the number of times help was displayed instead, because the parameters were invalid or the command requested it.
+         *
+         * @return the number of help fallbacks.
+         */
+        public long getHelpFallbacks() {
+            return helpFallbacks;
+        }
+
+        /**
+         * Returns the number of times the command threw an exception.
+         *
+         * @return the number of failed executions.
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        public HistogramSnapshot getParse() {
+            return parse;
+        }
+
+        public HistogramSnapshot getExecute() {
+            return execute;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.maxstupo.jannocli.metrics;
+
+/**
+ * A copy of a {@link LatencyHistogram}. Percentiles are the upper bound of the bucket holding them, so they are at most twice the real value.
+ *
+ * @author Maxstupo
+ */
+public final class HistogramSnapshot {
+
+    private final long[] buckets;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    HistogramSnapshot(long[] buckets, long total, long max) {
+        long count = 0;
+        for (long bucket : buckets)
+            count += bucket;
+
+        this.buckets = buckets;
+        this.count = count;
+        this.total = total;
+        this.max = max;
+    }
+
+    /**
+     * Returns a snapshot holding the durations of this snapshot and the given snapshot.
+     */
+    HistogramSnapshot merge(HistogramSnapshot other) {
+        long[] merged = new long[buckets.length];
+        for (int i = 0; i < merged.length; i++)
+            merged[i] = buckets[i] + other.buckets[i];
+        return new HistogramSnapshot(merged, total + other.total, Math.max(max, other.max));
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the number of recorded durations.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded durations.
+     *
+     * @return the total in nanoseconds.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the longest recorded duration.
+     *
+     * @return the longest duration in nanoseconds.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of the recorded durations.
+     *
+     * @return the mean in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        return (count > 0) ? (double) total / count : 0;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of the recorded durations.
+     *
+     * @param percentile
+     *            the percentile, between 0 and 100.
+     * @return the percentile in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        long rank = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0)
+                return Math.min((i == 0) ? 0 : (1L << i) - 1, max);
+        }
+        return max;
+    }
+}
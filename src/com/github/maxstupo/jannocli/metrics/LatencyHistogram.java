@@ -0,0 +1,60 @@
+package com.github.maxstupo.jannocli.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations. Each duration is counted in a bucket by its highest set bit, so bucket <code>i</code> holds durations from
+ * <code>2^(i-1)</code> to <code>2^i - 1</code> nanoseconds. Recording is a few atomic additions and never allocates.
+ *
+ * @author Maxstupo
+ */
+public final class LatencyHistogram {
+
+    static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos
+     *            the duration in nanoseconds, negative durations are recorded as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+        total.add(nanos);
+
+        // The maximum rarely changes, so it is only written when it does.
+        long current;
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos))
+            ;
+    }
+
+    /**
+     * Returns a copy of the recorded durations. Durations recorded while the copy is made may be partly included.
+     *
+     * @return a snapshot of this histogram.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            counts[i] = buckets.get(i);
+        return new HistogramSnapshot(counts, total.sum(), max.get());
+    }
+
+    /**
+     * Removes every recorded duration.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets.set(i, 0);
+        total.reset();
+        max.set(0);
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.maxstupo.jannocli.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.maxstupo.jannocli.CommandResult;
+
+/**
+ * The metrics of a command-line: the outcome of every dispatched line and how long each {@link Phase} took. The outcomes and durations of
+ * executed commands are kept by each command in a {@link CommandMetrics}, and only combined with these metrics when a {@link #snapshot(Map)
+ * snapshot} is taken, so they aren't recorded twice.
+ * <p>
+ * Collection is off by default. While off, dispatching only reads {@link #isEnabled()}; while on, each phase costs a call or two to
+ * {@link System#nanoTime()} and a few atomic additions. Counters are {@link LongAdder}s, so threads dispatching at once don't contend.
+ *
+ * @author Maxstupo
+ */
+public final class Metrics {
+
+    private volatile boolean enabled;
+
+    private final LongAdder[] results = new LongAdder[CommandResult.values().length];
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+
+    public Metrics() {
+        for (int i = 0; i < results.length; i++)
+            results[i] = new LongAdder();
+        for (int i = 0; i < phases.length; i++)
+            phases[i] = new LatencyHistogram();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets if metrics are collected. Values recorded before collection was turned off are kept.
+     *
+     * @param enabled
+     *            true to collect metrics.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Records the time taken by a phase that isn't specific to a command. The phases of a command are recorded with its {@link CommandMetrics}.
+     *
+     * @param phase
+     *            the phase.
+     * @param nanos
+     *            the duration in nanoseconds.
+     */
+    public void record(Phase phase, long nanos) {
+        phases[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Counts the outcome of a line that didn't execute a command. The outcomes of executed commands are counted with their {@link CommandMetrics}.
+     *
+     * @param result
+     *            the outcome.
+     */
+    public void count(CommandResult result) {
+        results[result.ordinal()].increment();
+    }
+
+    /**
+     * Returns a copy of these metrics combined with the given metrics of each command.
+     *
+     * @param commands
+     *            the metrics of each command, by the name to report them under.
+     * @return a snapshot of these metrics.
+     */
+    public MetricsSnapshot snapshot(Map<String, CommandMetrics> commands) {
+        long[] counts = new long[results.length];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = results[i].sum();
+
+        HistogramSnapshot[] phaseSnapshots = new HistogramSnapshot[phases.length];
+        for (int i = 0; i < phaseSnapshots.length; i++)
+            phaseSnapshots[i] = phases[i].snapshot();
+
+        Map<String, CommandMetrics.Snapshot> commandSnapshots = new TreeMap<>();
+        for (Map.Entry<String, CommandMetrics> entry : commands.entrySet()) {
+            CommandMetrics.Snapshot command = entry.getValue().snapshot();
+            commandSnapshots.put(entry.getKey(), command);
+
+            counts[CommandResult.EXECUTED.ordinal()] += command.getExecuted();
+            counts[CommandResult.HELP.ordinal()] += command.getHelpFallbacks();
+            counts[CommandResult.FAILED.ordinal()] += command.getFailed();
+            phaseSnapshots[Phase.PARSE.ordinal()] = phaseSnapshots[Phase.PARSE.ordinal()].merge(command.getParse());
+            phaseSnapshots[Phase.EXECUTE.ordinal()] = phaseSnapshots[Phase.EXECUTE.ordinal()].merge(command.getExecute());
+        }
+
+        Map<CommandResult, Long> resultCounts = new EnumMap<>(CommandResult.class);
+        for (CommandResult result : CommandResult.values())
+            resultCounts.put(result, counts[result.ordinal()]);
+
+        Map<Phase, HistogramSnapshot> phaseMap = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values())
+            phaseMap.put(phase, phaseSnapshots[phase.ordinal()]);
+
+        return new MetricsSnapshot(enabled, Collections.unmodifiableMap(resultCounts), Collections.unmodifiableMap(phaseMap), Collections.unmodifiableMap(commandSnapshots));
+    }
+
+    /**
+     * Removes every recorded value, except those of each command.
+     */
+    public void reset() {
+        for (LongAdder result : results)
+            result.reset();
+        for (LatencyHistogram phase : phases)
+            phase.reset();
+    }
+}
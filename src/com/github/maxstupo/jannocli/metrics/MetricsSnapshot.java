@@ -0,0 +1,65 @@
+package com.github.maxstupo.jannocli.metrics;
+
+import java.util.Map;
+
+import com.github.maxstupo.jannocli.CommandResult;
+
+/**
+ * A copy of the {@link Metrics} of a command-line and the {@link CommandMetrics} of its commands.
+ *
+ * @author Maxstupo
+ */
+public final class MetricsSnapshot {
+
+    private final boolean enabled;
+    private final Map<CommandResult, Long> results;
+    private final Map<Phase, HistogramSnapshot> phases;
+    private final Map<String, CommandMetrics.Snapshot> commands;
+
+    MetricsSnapshot(boolean enabled, Map<CommandResult, Long> results, Map<Phase, HistogramSnapshot> phases, Map<String, CommandMetrics.Snapshot> commands) {
+        this.enabled = enabled;
+        this.results = results;
+        this.phases = phases;
+        this.commands = commands;
+    }
+
+    /**
+     * Returns true if metrics were being collected when this snapshot was taken.
+     *
+     * @return true if metrics were being collected.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the number of commands or lines with the given outcome. Each stage of a pipeline is counted separately.
+     *
+     * @param result
+     *            the outcome.
+     * @return the number of commands or lines with the outcome.
+     */
+    public long getCount(CommandResult result) {
+        return results.get(result);
+    }
+
+    /**
+     * Returns the durations of the given phase, across every command.
+     *
+     * @param phase
+     *            the phase.
+     * @return the durations of the phase.
+     */
+    public HistogramSnapshot getPhase(Phase phase) {
+        return phases.get(phase);
+    }
+
+    /**
+     * Returns the metrics of each command that has recorded any, sorted by name.
+     *
+     * @return the metrics of each command, by its keywords.
+     */
+    public Map<String, CommandMetrics.Snapshot> getCommands() {
+        return commands;
+    }
+}
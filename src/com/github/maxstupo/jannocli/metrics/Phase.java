@@ -0,0 +1,21 @@
+package com.github.maxstupo.jannocli.metrics;
+
+/**
+ * The phases of dispatching a line, each timed separately.
+ *
+ * @author Maxstupo
+ */
+public enum Phase {
+
+    /** Splitting the line into tokens. */
+    TOKENIZE,
+
+    /** Finding the command for the tokens. */
+    RESOLVE,
+
+    /** Converting the tokens into the parameters of the command. */
+    PARSE,
+
+    /** Executing the command. */
+    EXECUTE
+}
@@ -0,0 +1,294 @@
+package com.github.maxstupo.jannocli.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import com.github.maxstupo.jannocli.ExecutedCommand;
+import com.github.maxstupo.jannocli.ICommandRegistry;
+import com.github.maxstupo.jannocli.annotation.Command;
+import com.github.maxstupo.jannocli.annotation.ParamAliases;
+import com.github.maxstupo.jannocli.annotation.ParamDescription;
+import com.github.maxstupo.jannocli.annotation.ParamTypes;
+import com.github.maxstupo.jannocli.annotation.Serial;
+
+/**
+ * This annotation processor generates an {@link ICommandRegistry} for each {@link Command} annotated type, so that registering the type needs no
+ * reflection at runtime. The generated class calls each command method directly and contains all annotation values as constants.
+ * <p>
+ * Types with private command methods, or types that can't be accessed from their package, are skipped with a warning and are registered using
+ * reflection instead.
+ * <p>
+ * The processor isn't registered as a service, as it reports invalid command types as compile errors, so it only runs when named with
+ * <code>-processor</code> or in the <code>annotationProcessors</code> of a build.
+ *
+ * @author Maxstupo
+ */
+@SupportedAnnotationTypes("com.github.maxstupo.jannocli.annotation.Command")
+public class CommandProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Command.class)) {
+            if (element.getKind() == ElementKind.CLASS)
+                process((TypeElement) element);
+        }
+        return false;
+    }
+
+    private void process(TypeElement type) {
+        Command info = type.getAnnotation(Command.class);
+        if (info.value().isEmpty()) {
+            error(type, "Command annotation must have value() set for types");
+            return;
+        }
+
+        if (!isAccessible(type)) {
+            warning(type, "Command registry not generated, the type isn't accessible from its package. Reflection will be used instead.");
+            return;
+        }
+
+        TypeMirror executedCommand = processingEnv.getElementUtils().getTypeElement(ExecutedCommand.class.getCanonicalName()).asType();
+
+        List<ExecutableElement> methods = new ArrayList<>();
+        ExecutableElement root = null;
+        Set<String> keywords = new HashSet<>();
+
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed.getKind() != ElementKind.METHOD)
+                continue;
+
+            ExecutableElement method = (ExecutableElement) enclosed;
+            Command commandInfo = method.getAnnotation(Command.class);
+            if (commandInfo == null)
+                continue;
+
+            if (method.getParameters().size() != 1 || !processingEnv.getTypeUtils().isAssignable(executedCommand, method.getParameters().get(0).asType())) {
+                warning(method, "Command method ignored, it must have a single parameter assignable from " + ExecutedCommand.class.getSimpleName());
+                continue;
+            }
+
+            if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                warning(method, "Command registry not generated for " + type.getQualifiedName() + ", command methods must not be private. Reflection will be used instead.");
+                return;
+            }
+
+            if (isRoot(commandInfo)) {
+                if (root != null) {
+                    error(method, "Root command for " + type.getQualifiedName() + " already set!");
+                    return;
+                }
+                root = method;
+            } else {
+                for (String keyword : names(commandInfo)) {
+                    if (!keywords.add(keyword)) {
+                        error(method, "A sub-command for " + type.getQualifiedName() + " already has the keyword or alias - " + keyword);
+                        return;
+                    }
+                }
+            }
+            methods.add(method);
+        }
+
+        if (root == null) {
+            error(type, "All command types must have a root command - " + type.getQualifiedName());
+            return;
+        }
+
+        try {
+            generate(type, info, methods);
+        } catch (IOException e) {
+            error(type, "Failed to generate command registry: " + e.getMessage());
+        }
+    }
+
+    private void generate(TypeElement type, Command info, List<ExecutableElement> methods) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+
+        String ownerName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+        String generatedName = ICommandRegistry.PREFIX + flatName(type);
+        String qualifiedName = packageName.isEmpty() ? generatedName : packageName + "." + generatedName;
+
+        try (Writer w = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            if (!packageName.isEmpty())
+                w.write("package " + packageName + ";\n\n");
+
+            w.write("/** Generated by " + CommandProcessor.class.getName() + " for {@link " + ownerName + "}. Do not edit. */\n");
+            w.write("public final class " + generatedName + " implements " + ICommandRegistry.class.getName() + " {\n\n");
+
+            w.write("    @Override\n");
+            w.write("    public Class<?> getOwnerType() {\n");
+            w.write("        return " + ownerName + ".class;\n");
+            w.write("    }\n\n");
+
+            w.write("    @Override\n");
+            w.write("    public String getKeyword() {\n");
+            w.write("        return " + literal(info.value()) + ";\n");
+            w.write("    }\n\n");
+
+            w.write("    @Override\n");
+            w.write("    public String[] getAliases() {\n");
+            w.write("        return " + literals(info.aliases()) + ";\n");
+            w.write("    }\n\n");
+
+            w.write("    @Override\n");
+            w.write("    public com.github.maxstupo.jannocli.CommandContainer createContainer(Object owner) {\n");
+            w.write("        com.github.maxstupo.jannocli.CommandContainer container = new com.github.maxstupo.jannocli.CommandContainer(owner, getKeyword(), getAliases());\n");
+
+            for (ExecutableElement method : methods) {
+                Command commandInfo = method.getAnnotation(Command.class);
+                ParamAliases paramAliases = method.getAnnotation(ParamAliases.class);
+                ParamDescription paramDescriptions = method.getAnnotation(ParamDescription.class);
+
+                String call = method.getModifiers().contains(Modifier.STATIC) ? ownerName + "." + method.getSimpleName() + "(cmd)" : "((" + ownerName + ") o)." + method.getSimpleName() + "(cmd)";
+
+                w.write("        container." + (isRoot(commandInfo) ? "setRootCommand" : "addCommand") + "(new com.github.maxstupo.jannocli.AnnotationCommand(container, (o, cmd) -> " + call + ", //\n");
+                w.write("                " + literal(commandInfo.value()) + ", " + literals(commandInfo.aliases()) + ", " + literal(commandInfo.name()) + ", " + literal(commandInfo.description()) + ", " + commandInfo.hidden() + ", " + (method.getAnnotation(Serial.class) != null) + ", //\n");
+                w.write("                " + paramTypes(method) + ", //\n");
+                w.write("                " + literals(paramAliases != null ? paramAliases.value() : new String[0]) + ", //\n");
+                w.write("                " + literals(paramDescriptions != null ? paramDescriptions.value() : new String[0]) + "));\n");
+            }
+
+            w.write("        return container;\n");
+            w.write("    }\n");
+            w.write("}\n");
+        }
+    }
+
+    /** Returns the class literals of the {@link ParamTypes} annotation, read from the mirror as the classes may not be compiled yet. */
+    private String paramTypes(ExecutableElement method) {
+        StringBuilder sb = new StringBuilder("new Class<?>[] {");
+
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().toString().equals(ParamTypes.class.getCanonicalName()))
+                continue;
+
+            for (AnnotationValue value : mirror.getElementValues().values()) {
+                Object types = value.getValue();
+
+                if (types instanceof List) {
+                    for (Object type : (List<?>) types) {
+                        TypeMirror mirrorType = (TypeMirror) ((AnnotationValue) type).getValue();
+                        sb.append(' ').append(processingEnv.getTypeUtils().erasure(mirrorType)).append(".class,");
+                    }
+                }
+            }
+        }
+
+        if (sb.charAt(sb.length() - 1) == ',')
+            sb.setLength(sb.length() - 1);
+        return sb.append(" }").toString();
+    }
+
+    private static boolean isRoot(Command info) {
+        return info.value().isEmpty() && info.aliases().length == 1 && info.aliases()[0].isEmpty();
+    }
+
+    private static List<String> names(Command info) {
+        List<String> names = new ArrayList<>();
+        if (!info.value().isEmpty())
+            names.add(info.value());
+        for (String alias : info.aliases()) {
+            if (!alias.isEmpty() && !names.contains(alias))
+                names.add(alias);
+        }
+        return names;
+    }
+
+    /** Returns true if the given type and all types enclosing it can be accessed from within their package. */
+    private static boolean isAccessible(TypeElement type) {
+        Element element = type;
+        while (element instanceof TypeElement) {
+            TypeElement typeElement = (TypeElement) element;
+            if (typeElement.getModifiers().contains(Modifier.PRIVATE))
+                return false;
+            if (typeElement.getNestingKind() == NestingKind.LOCAL || typeElement.getNestingKind() == NestingKind.ANONYMOUS)
+                return false;
+            element = typeElement.getEnclosingElement();
+        }
+        return true;
+    }
+
+    /** Returns the simple names of the given type and all types enclosing it, joined by underscores. */
+    private static String flatName(TypeElement type) {
+        String name = type.getSimpleName().toString();
+
+        Element element = type.getEnclosingElement();
+        while (element instanceof TypeElement) {
+            name = element.getSimpleName() + "_" + name;
+            element = element.getEnclosingElement();
+        }
+        return name;
+    }
+
+    private static String literals(String[] values) {
+        StringBuilder sb = new StringBuilder("new String[] {");
+        for (int i = 0; i < values.length; i++)
+            sb.append(i == 0 ? " " : ", ").append(literal(values[i]));
+        return sb.append(" }").toString();
+    }
+
+    private static String literal(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7E) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private void error(Element element, String msg) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg, element);
+    }
+
+    private void warning(Element element, String msg) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, msg, element);
+    }
+}
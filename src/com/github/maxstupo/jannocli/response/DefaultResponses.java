@@ -1,21 +1,40 @@
-package com.github.maxstupo.jannocli.response;
-
-import com.github.maxstupo.jannocli.CommandLine;
-
-/**
- * The default responses used in {@link CommandLine}.
- * 
- * @author Maxstupo
- */
-public class DefaultResponses implements IResponses {
-
-    @Override
-    public String getUnknownCommandResponse() {
-        return "No command called '{0}' found!";
-    }
-
-    @Override
-    public String getNothingEnteredResponse() {
-        return "For help with commands type '?' or 'help'";
-    }
-}
+package com.github.maxstupo.jannocli.response;
+
+import com.github.maxstupo.jannocli.CommandLine;
+
+/**
+ * The default responses used in {@link CommandLine}.
+ * 
+ * @author Maxstupo
+ */
+public class DefaultResponses implements IResponses {
+
+    static final String NO_HELP_FOUND = "No commands matching '{0}' found!";
+    static final String AMBIGUOUS_COMMAND = "'{0}' is ambiguous: {1}";
+    static final String SUGGESTION = "Did you mean {1}?";
+
+    @Override
+    public String getUnknownCommandResponse() {
+        return "No command called '{0}' found!";
+    }
+
+    @Override
+    public String getNothingEnteredResponse() {
+        return "For help with commands type '?' or 'help'";
+    }
+
+    @Override
+    public String getNoHelpFoundResponse() {
+        return NO_HELP_FOUND;
+    }
+
+    @Override
+    public String getAmbiguousCommandResponse() {
+        return AMBIGUOUS_COMMAND;
+    }
+
+    @Override
+    public String getSuggestionResponse() {
+        return SUGGESTION;
+    }
+}
@@ -1,24 +1,55 @@
-package com.github.maxstupo.jannocli.response;
-
-/**
- * This interface provides methods for message responses used within the command-line.
- * 
- * @author Maxstupo
- */
-public interface IResponses {
-
-    /**
-     * The message for an unknown command. Use {0} for the command that is unknown.
-     * 
-     * @return the message for an unknown command.
-     */
-    String getUnknownCommandResponse();
-
-    /**
-     * The message for nothing entered into the command line.
-     * 
-     * @return the message for nothing entered into the command line.
-     */
-    String getNothingEnteredResponse();
-
-}
+package com.github.maxstupo.jannocli.response;
+
+/**
+ * This interface provides methods for message responses used within the command-line.
+ * 
+ * @author Maxstupo
+ */
+public interface IResponses {
+
+    /**
+     * The message for an unknown command. Use {0} for the command that is unknown.
+     * 
+     * @return the message for an unknown command.
+     */
+    String getUnknownCommandResponse();
+
+    /**
+     * The message for nothing entered into the command line.
+     * 
+     * @return the message for nothing entered into the command line.
+     */
+    String getNothingEnteredResponse();
+
+    /**
+     * The message for a help search without results. Use {0} for the search terms. Defaults to the message of {@link DefaultResponses}.
+     * 
+     * @return the message for a help search without results.
+     */
+    default String getNoHelpFoundResponse() {
+        return DefaultResponses.NO_HELP_FOUND;
+    }
+
+    /**
+     * The message listing the commands an ambiguous abbreviation could stand for. Use {0} for the abbreviation given and {1} for the keywords of the
+     * commands starting with it, quoted and separated by commas. Returning null displays nothing. Defaults to the message of
+     * {@link DefaultResponses}.
+     * 
+     * @return the message listing the commands an abbreviation could stand for, or null.
+     */
+    default String getAmbiguousCommandResponse() {
+        return DefaultResponses.AMBIGUOUS_COMMAND;
+    }
+
+    /**
+     * The message suggesting the keywords that may have been meant instead of an unknown command or sub-command. Use {0} for the keyword that is
+     * unknown and {1} for the closest keywords or aliases, quoted and separated by commas, nearest first. Returning null displays nothing. Defaults
+     * to the message of {@link DefaultResponses}.
+     * 
+     * @return the message suggesting keywords, or null.
+     */
+    default String getSuggestionResponse() {
+        return DefaultResponses.SUGGESTION;
+    }
+
+}
@@ -0,0 +1,410 @@
+package com.github.maxstupo.jannocli.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.maxstupo.jannocli.CommandLine;
+
+/**
+ * This class serves a {@link CommandLine} to many clients at once over TCP or Unix domain sockets. Each client gets a {@link Session} with its own
+ * output, and every session dispatches into the same command-line.
+ * <p>
+ * All connections are handled by a single selector thread, so idle sessions only cost their buffers. Commands are executed on the
+ * {@link CommandLine#getExecutor() executor} of the command-line, which must not run tasks on the thread that submits them.
+ * <p>
+ * The server has no authentication, so it should only be bound to a loopback address or to a Unix domain socket with suitable file permissions.
+ * Settings must be changed before the server is started.
+ *
+ * @author Maxstupo
+ */
+public class CommandServer implements Closeable, Runnable {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final CommandLine commandLine;
+    private final Selector selector;
+
+    private final List<ServerSocketChannel> servers = new ArrayList<>();
+    private final List<Path> socketFiles = new ArrayList<>();
+    private final Set<Session> sessions = Collections.newSetFromMap(new ConcurrentHashMap<Session, Boolean>());
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private Charset charset = StandardCharsets.UTF_8;
+    private int maxLineLength = 8192;
+    private int maxPendingLines = 64;
+    private int outputLimit = 64 * 1024;
+    private long outputTimeout = 30000;
+
+    private Thread thread;
+    private volatile boolean isRunning;
+
+    /**
+     * Create a new {@link CommandServer}.
+     *
+     * @param commandLine
+     *            the command-line to serve.
+     * @throws IOException
+     *             if the selector can't be opened.
+     */
+    public CommandServer(CommandLine commandLine) throws IOException {
+        this.commandLine = commandLine;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Listens for connections on the given address. This can be called more than once to listen on several addresses.
+     *
+     * @param address
+     *            an {@link InetSocketAddress}, or a <code>java.net.UnixDomainSocketAddress</code> on Java 16 or later.
+     * @return the address bound, which has the actual port if port 0 was given.
+     * @throws IOException
+     *             if the address can't be bound.
+     */
+    public SocketAddress bind(SocketAddress address) throws IOException {
+        ServerSocketChannel server = (address instanceof InetSocketAddress) ? ServerSocketChannel.open() : openUnix();
+        try {
+            server.bind(address);
+            server.configureBlocking(false);
+            register(server);
+            return server.getLocalAddress();
+        } catch (IOException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Listens for connections on a Unix domain socket at the given path. The socket file is deleted when the server is closed.
+     *
+     * @param path
+     *            the path of the socket file, which must not exist.
+     * @return the address bound.
+     * @throws IOException
+     *             if the address can't be bound.
+     * @throws UnsupportedOperationException
+     *             if Unix domain sockets aren't supported, they require Java 16 or later.
+     */
+    public SocketAddress bindUnix(Path path) throws IOException {
+        SocketAddress address;
+        try {
+            address = (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class).invoke(null, path);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Unix domain sockets require Java 16 or later", e);
+        }
+
+        SocketAddress bound = bind(address);
+        synchronized (socketFiles) {
+            socketFiles.add(path);
+        }
+        return bound;
+    }
+
+    /** Opens a server channel for Unix domain sockets, using methods only available from Java 16. */
+    private static ServerSocketChannel openUnix() throws IOException {
+        try {
+            ProtocolFamily unix = StandardProtocolFamily.valueOf("UNIX");
+            return (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, unix);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new UnsupportedOperationException("Unix domain sockets aren't supported", e.getCause());
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new UnsupportedOperationException("Unix domain sockets require Java 16 or later", e);
+        }
+    }
+
+    private void register(final ServerSocketChannel server) throws IOException {
+        synchronized (servers) {
+            servers.add(server);
+        }
+        runOnSelector(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    server.register(selector, SelectionKey.OP_ACCEPT);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * Start the selector thread.
+     *
+     * @return true if the thread started.
+     */
+    public boolean start() {
+        return start("JAnnoCli-server");
+    }
+
+    /**
+     * Start the selector thread.
+     *
+     * @param threadName
+     *            the name of the thread.
+     * @return true if the thread started.
+     */
+    public synchronized boolean start(String threadName) {
+        if (thread != null || !selector.isOpen())
+            return false;
+
+        isRunning = true;
+
+        thread = new Thread(this, threadName);
+        thread.start();
+        return true;
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        try {
+            while (isRunning) {
+                selector.select();
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (CancelledKeyException e) {
+                        // The session of the task was closed by another thread, the rest of the server carries on.
+                    }
+                }
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+
+                    if (key.attachment() == null) {
+                        accept((ServerSocketChannel) key.channel());
+                    } else {
+                        handle(key, (Session) key.attachment(), buffer);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void accept(ServerSocketChannel server) {
+        SocketChannel channel = null;
+        try {
+            channel = server.accept();
+            if (channel == null)
+                return;
+
+            channel.configureBlocking(false);
+            SocketAddress remoteAddress = channel.getRemoteAddress();
+            if (remoteAddress instanceof InetSocketAddress)
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            Session session = new Session(this, ids.incrementAndGet(), channel, remoteAddress);
+            session.key = channel.register(selector, SelectionKey.OP_READ, session);
+            sessions.add(session);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e1) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+
+    private void handle(SelectionKey key, Session session, ByteBuffer buffer) {
+        try {
+            if (key.isReadable())
+                session.read(buffer);
+            if (key.isValid() && key.isWritable())
+                session.flush();
+        } catch (IOException | CancelledKeyException e) {
+            session.close();
+        }
+    }
+
+    /**
+     * Runs the given task on the selector thread, which is the only thread allowed to change the interest sets of the selection keys.
+     */
+    void runOnSelector(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    void removeSession(Session session) {
+        sessions.remove(session);
+    }
+
+    /**
+     * Stops the server, closing every session and every listening channel.
+     */
+    @Override
+    public synchronized void close() {
+        isRunning = false;
+
+        if (thread != null) {
+            selector.wakeup();
+            if (thread != Thread.currentThread()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } else {
+            closeAll();
+        }
+    }
+
+    private void closeAll() {
+        for (Session session : sessions)
+            session.close();
+
+        synchronized (servers) {
+            for (ServerSocketChannel server : servers) {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            servers.clear();
+        }
+
+        synchronized (socketFiles) {
+            for (Path path : socketFiles) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            socketFiles.clear();
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the open sessions.
+     *
+     * @return the open sessions.
+     */
+    public Collection<Session> getSessions() {
+        return Collections.unmodifiableSet(sessions);
+    }
+
+    public CommandLine getCommandLine() {
+        return commandLine;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Sets the charset of the input and output of each session, UTF-8 by default.
+     *
+     * @param charset
+     *            the charset.
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public int getMaxLineLength() {
+        return maxLineLength;
+    }
+
+    /**
+     * Sets the maximum number of characters of a line, longer lines are ignored. 8192 by default.
+     *
+     * @param maxLineLength
+     *            the maximum line length.
+     */
+    public void setMaxLineLength(int maxLineLength) {
+        this.maxLineLength = maxLineLength;
+    }
+
+    public int getMaxPendingLines() {
+        return maxPendingLines;
+    }
+
+    /**
+     * Sets the number of lines a session can have waiting to be executed before reading from its client is paused. 64 by default.
+     *
+     * @param maxPendingLines
+     *            the maximum number of pending lines.
+     */
+    public void setMaxPendingLines(int maxPendingLines) {
+        this.maxPendingLines = maxPendingLines;
+    }
+
+    public int getOutputLimit() {
+        return outputLimit;
+    }
+
+    /**
+     * Sets the number of bytes of output a session can buffer before commands writing to it wait for the client. 64 KiB by default.
+     *
+     * @param outputLimit
+     *            the output limit in bytes.
+     */
+    public void setOutputLimit(int outputLimit) {
+        this.outputLimit = outputLimit;
+    }
+
+    public long getOutputTimeout() {
+        return outputTimeout;
+    }
+
+    /**
+     * Sets how long a command waits for a client to read its output before the session is closed. 30 seconds by default.
+     *
+     * @param outputTimeout
+     *            the timeout in milliseconds.
+     */
+    public void setOutputTimeout(long outputTimeout) {
+        this.outputTimeout = outputTimeout;
+    }
+}
@@ -0,0 +1,381 @@
+package com.github.maxstupo.jannocli.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.maxstupo.jannocli.cli.IPrint;
+import com.github.maxstupo.jannocli.cli.LineDecoder;
+
+/**
+ * A connection to a {@link CommandServer}. Each session has its own output and attributes, and executes its lines one at a time in the order they
+ * were received. Sessions don't wait for each other, a slow command or a slow client only holds up its own session.
+ * <p>
+ * Output is buffered up to a limit. A command writing to a full output waits for the client to read it, and the session is closed if the client
+ * doesn't read within the output timeout.
+ *
+ * @author Maxstupo
+ */
+public final class Session {
+
+    private static final ThreadLocal<Session> current = new ThreadLocal<>();
+
+    private final CommandServer server;
+    private final long id;
+    private final SocketChannel channel;
+    private final SocketAddress remoteAddress;
+    private final ConcurrentMap<String, Object> attributes = new ConcurrentHashMap<>();
+    private final IPrint out = new SessionPrint();
+
+    // Input, decoded on the selector thread and executed on the executor of the command-line.
+    private final LineDecoder decoder;
+    private final LineDecoder.Handler handler;
+    private final Queue<String> lines = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingLines = new AtomicInteger();
+    private final AtomicBoolean executing = new AtomicBoolean();
+    private volatile boolean inputEnded;
+
+    /** Bytes of an incomplete character left over from the last read, only used by the selector thread. */
+    private byte[] carry;
+
+    // Output, guarded by the outbox.
+    private final Queue<ByteBuffer> outbox = new ArrayDeque<>();
+    private int outboxBytes;
+    private boolean writeRequested;
+    private boolean closeWhenFlushed;
+
+    SelectionKey key;
+    private volatile boolean closed;
+
+    // Changes to the interest set, run on the selector thread. The session can be closed by an executor thread, cancelling the key, at any time.
+    private final Runnable resumeReading = new Runnable() {
+
+        @Override
+        public void run() {
+            try {
+                if (!inputEnded && key.isValid())
+                    key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            } catch (CancelledKeyException e) {
+                // Closed.
+            }
+        }
+    };
+    private final Runnable requestWrite = new Runnable() {
+
+        @Override
+        public void run() {
+            try {
+                if (key.isValid())
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            } catch (CancelledKeyException e) {
+                // Closed.
+            }
+        }
+    };
+
+    Session(CommandServer server, long id, SocketChannel channel, SocketAddress remoteAddress) {
+        this.server = server;
+        this.id = id;
+        this.channel = channel;
+        this.remoteAddress = remoteAddress;
+        this.decoder = new LineDecoder(server.getCharset(), server.getMaxLineLength());
+        this.handler = new LineDecoder.Handler() {
+
+            @Override
+            public void onLine(CharSequence line) {
+                enqueue(line.toString());
+            }
+
+            @Override
+            public void onLineTooLong() {
+                write(server.getCharset().encode("Line too long, ignored.\n"), false);
+            }
+        };
+    }
+
+    /**
+     * Returns the session executing a command on the current thread, or null if the current thread isn't executing a command for a session.
+     *
+     * @return the session of the current thread, or null.
+     */
+    public static Session current() {
+        return current.get();
+    }
+
+    /**
+     * Returns the id of this session, unique within its server.
+     *
+     * @return the id of this session.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the address of the client.
+     *
+     * @return the address of the client.
+     */
+    public SocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    /**
+     * Returns the output of this session, given to each command it executes.
+     *
+     * @return the output of this session.
+     */
+    public IPrint getOut() {
+        return out;
+    }
+
+    /**
+     * Returns the attribute with the given name, or null.
+     *
+     * @param name
+     *            the name of the attribute.
+     * @return the value of the attribute, or null.
+     */
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    /**
+     * Sets the attribute with the given name, attributes are kept for as long as the session.
+     *
+     * @param name
+     *            the name of the attribute.
+     * @param value
+     *            the value of the attribute, or null to remove it.
+     */
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Closes this session. Lines not yet executed are discarded and output not yet sent is lost.
+     */
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+
+        synchronized (outbox) {
+            outbox.clear();
+            outboxBytes = 0;
+            outbox.notifyAll();
+        }
+        lines.clear();
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Closing anyway.
+        }
+        server.removeSession(this);
+    }
+
+    /**
+     * Reads from the channel and queues each complete line, called by the selector thread when the channel is readable.
+     */
+    void read(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        if (carry != null) {
+            buffer.put(carry);
+            carry = null;
+        }
+
+        int read = channel.read(buffer);
+        buffer.flip();
+
+        if (read < 0) {
+            decoder.finish(buffer, handler);
+            inputEnded = true;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            schedule();
+            return;
+        }
+
+        decoder.decode(buffer, handler);
+        if (buffer.hasRemaining()) {
+            carry = new byte[buffer.remaining()];
+            buffer.get(carry);
+        }
+
+        // Stop reading until the backlog has been executed, the client then waits within its socket buffers.
+        if (pendingLines.get() >= server.getMaxPendingLines())
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+    }
+
+    private void enqueue(String line) {
+        lines.add(line);
+        pendingLines.incrementAndGet();
+        schedule();
+    }
+
+    /**
+     * Executes queued lines on the executor if they aren't already being executed.
+     */
+    private void schedule() {
+        if (!executing.compareAndSet(false, true))
+            return;
+
+        try {
+            server.getCommandLine().getExecutor().execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    drain();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            executing.set(false);
+            close();
+        }
+    }
+
+    private void drain() {
+        current.set(this);
+        try {
+            String line;
+            while (!closed && (line = lines.poll()) != null) {
+                if (pendingLines.decrementAndGet() == server.getMaxPendingLines() - 1)
+                    server.runOnSelector(resumeReading);
+
+                try {
+                    server.getCommandLine().parse(out, line);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            current.remove();
+            executing.set(false);
+        }
+
+        if (!lines.isEmpty()) {
+            schedule();
+        } else if (inputEnded) {
+            closeWhenFlushed();
+        }
+    }
+
+    /**
+     * Queues the given bytes to be sent. If <code>block</code> is true and the output is full this waits for the client to read it, otherwise the
+     * bytes are dropped.
+     */
+    private void write(ByteBuffer bytes, boolean block) {
+        synchronized (outbox) {
+            if (outboxBytes > 0 && outboxBytes + bytes.remaining() > server.getOutputLimit()) {
+                if (!block)
+                    return;
+
+                long timeout = server.getOutputTimeout();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+                while (!closed && outboxBytes > 0 && outboxBytes + bytes.remaining() > server.getOutputLimit()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        close(); // The client isn't reading its output.
+                        return;
+                    }
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(outbox, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            if (closed)
+                return;
+
+            outbox.add(bytes);
+            outboxBytes += bytes.remaining();
+
+            if (!writeRequested) {
+                writeRequested = true;
+                server.runOnSelector(requestWrite);
+            }
+        }
+    }
+
+    /**
+     * Writes as much queued output as the channel accepts, called by the selector thread when the channel is writable.
+     */
+    void flush() throws IOException {
+        boolean close;
+        synchronized (outbox) {
+            ByteBuffer bytes;
+            while ((bytes = outbox.peek()) != null) {
+                int written = channel.write(bytes);
+                outboxBytes -= written;
+                if (bytes.hasRemaining())
+                    break;
+                outbox.poll();
+            }
+
+            if (outbox.isEmpty()) {
+                writeRequested = false;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+            outbox.notifyAll();
+            close = closeWhenFlushed && outbox.isEmpty();
+        }
+        if (close)
+            close();
+    }
+
+    /**
+     * Closes this session once the queued output has been sent, used when the client has ended its input.
+     */
+    private void closeWhenFlushed() {
+        synchronized (outbox) {
+            closeWhenFlushed = true;
+            if (!writeRequested) {
+                writeRequested = true;
+                server.runOnSelector(requestWrite);
+            }
+        }
+    }
+
+    /** The output of a session, writes are encoded and queued for the selector thread to send. */
+    private final class SessionPrint implements IPrint {
+
+        @Override
+        public void println(String line) {
+            write(server.getCharset().encode(line + "\n"), true);
+        }
+
+        @Override
+        public void print(String line) {
+            write(server.getCharset().encode(line), true);
+        }
+
+        @Override
+        public void print(CharSequence text) {
+            write(server.getCharset().encode(CharBuffer.wrap(text)), true);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.maxstupo.jannocli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.maxstupo.jannocli.cli.IPrint;
+
+/**
+ * Dispatches lines from many threads while another thread registers, unregisters and adds sub-commands, checking that no execution is lost or
+ * reaches the wrong command.
+ *
+ * @author Maxstupo
+ */
+public class ConcurrentDispatchTest {
+
+    private static final int STABLE = 64;
+    private static final int CHURN_SLOTS = 8;
+    private static final int LINES_PER_THREAD = 20000;
+
+    private static final IPrint DISCARD = new IPrint() {
+
+        @Override
+        public void println(String line) {
+        }
+
+        @Override
+        public void print(String line) {
+        }
+    };
+
+    @Test
+    public void dispatchWhileRegistering() throws Exception {
+        final CommandLine cli = new CommandLine(new ByteArrayInputStream(new byte[0]), DISCARD);
+        final AtomicLongArray executed = new AtomicLongArray(STABLE);
+        final AtomicLong misrouted = new AtomicLong();
+
+        for (int i = 0; i < STABLE; i++)
+            cli.register(registry("stable" + i, new String[] { "s" + i }, i, executed, misrouted), new Object());
+
+        final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final AtomicBoolean dispatching = new AtomicBoolean(true);
+        final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long[][] expected = new long[threads][STABLE];
+
+        // Registers and unregisters commands with their own keywords, and adds sub-commands to a registered command, until dispatching ends.
+        Thread churn = new Thread(() -> {
+            try {
+                start.await();
+                CommandContainer target = cli.getCommandContainer("stable0");
+                for (int generation = 0; dispatching.get(); generation++) {
+                    int slot = generation % CHURN_SLOTS;
+                    cli.unregister("churn" + slot);
+                    cli.register(registry("churn" + slot, new String[] { "ch" + slot }, slot, null, misrouted), new Object());
+
+                    target.addCommand(new AnnotationCommand(target, (owner, cmd) -> {
+                    }, "extra" + generation, new String[0], "Extra", "Added while dispatching", false, new Class<?>[0], new String[0], new String[0]));
+                }
+            } catch (Throwable e) {
+                errors.add(e);
+            }
+        }, "churn");
+
+        List<Thread> dispatchers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final long[] counts = expected[t];
+            final int seed = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int n = 0; n < LINES_PER_THREAD; n++) {
+                        int id = (n * 31 + seed * 17) % STABLE;
+                        String keyword = (n & 1) == 0 ? "stable" + id : "s" + id;
+                        CommandResult result = cli.parse(DISCARD, keyword + " " + id);
+                        if (result != CommandResult.EXECUTED)
+                            throw new AssertionError("'" + keyword + " " + id + "' was " + result);
+                        counts[id]++;
+
+                        // The churned commands may or may not be registered, but must never run the wrong command.
+                        int slot = n % CHURN_SLOTS;
+                        result = cli.parse(DISCARD, "churn" + slot + " " + slot);
+                        if (result != CommandResult.EXECUTED && result != CommandResult.UNKNOWN_COMMAND)
+                            throw new AssertionError("'churn" + slot + "' was " + result);
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }, "dispatch-" + t);
+            dispatchers.add(thread);
+            thread.start();
+        }
+        churn.start();
+        start.countDown();
+
+        for (Thread thread : dispatchers)
+            thread.join(TimeUnit.MINUTES.toMillis(2));
+        dispatching.set(false);
+        churn.join(TimeUnit.MINUTES.toMillis(1));
+
+        if (!errors.isEmpty())
+            throw new AssertionError("Dispatch failed: " + errors.peek(), errors.peek());
+        assertEquals(0, misrouted.get(), "executions that reached the wrong command");
+
+        for (int id = 0; id < STABLE; id++) {
+            long sum = 0;
+            for (long[] counts : expected)
+                sum += counts[id];
+            assertEquals(sum, executed.get(id), "executions of stable" + id);
+        }
+
+        // Everything registered while dispatching is visible afterwards.
+        assertNotNull(cli.getCommandContainer("churn0"));
+        assertTrue(cli.getCommandContainer("stable0").getCommands().size() > 1);
+    }
+
+    /**
+     * Creates a command whose root command takes its own id as the only parameter, counting the executions with a matching id (if given an array
+     * to count them in) and the ones without.
+     */
+    private static ICommandRegistry registry(final String keyword, final String[] aliases, final int id, final AtomicLongArray executed, final AtomicLong misrouted) {
+        return new ICommandRegistry() {
+
+            @Override
+            public Class<?> getOwnerType() {
+                return Object.class;
+            }
+
+            @Override
+            public String getKeyword() {
+                return keyword;
+            }
+
+            @Override
+            public String[] getAliases() {
+                return aliases;
+            }
+
+            @Override
+            public CommandContainer createContainer(Object owner) {
+                CommandContainer container = new CommandContainer(owner, keyword, aliases);
+                container.setRootCommand(new AnnotationCommand(container, (o, cmd) -> {
+                    if (cmd.parameters.getInt(0) != id) {
+                        misrouted.incrementAndGet();
+                    } else if (executed != null) {
+                        executed.incrementAndGet(id);
+                    }
+                }, "", new String[0], keyword, "Counts its executions", false, new Class<?>[] { Integer.class }, new String[] { "id" }, new String[] { "the id of the command" }));
+                return container;
+            }
+        };
+    }
+}